@@ -0,0 +1,66 @@
+package abe;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Looks up the distances of all relations of input/abe/Matrix.txt, by location id (as {@link MatrixReader#getDistance(String, String)}
+ * is used in the examples) and by index.
+ * 
+ * @author schroeder
+ * 
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MatrixReaderBenchmark {
+	
+	private MatrixReader matrixReader;
+	
+	private String[] locationIds;
+	
+	@Setup
+	public void setup() throws IOException{
+		matrixReader = new MatrixReader();
+		matrixReader.read("input/abe/Matrix.txt");
+		LocationIndex locationIndex = matrixReader.getCostMatrix().getLocationIndex();
+		locationIds = new String[locationIndex.size()];
+		for(int i=0;i<locationIds.length;i++){
+			//copies, i.e. ids are not identical to the interned ones (as ids of activities are not)
+			locationIds[i] = new String(locationIndex.getLocationId(i));
+		}
+	}
+	
+	@Benchmark
+	public double getDistanceById(){
+		double sum = 0.;
+		for(String from : locationIds){
+			for(String to : locationIds){
+				sum += matrixReader.getDistance(from, to);
+			}
+		}
+		return sum;
+	}
+	
+	@Benchmark
+	public double getDistanceByIndex(){
+		DenseCostMatrix matrix = matrixReader.getCostMatrix();
+		int n = matrix.getNuOfLocations();
+		double sum = 0.;
+		for(int from=0;from<n;from++){
+			for(int to=0;to<n;to++){
+				if(from != to) sum += matrix.getDistance(from, to);
+			}
+		}
+		return sum;
+	}
+
+}
@@ -0,0 +1,97 @@
+package abe;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import jsprit.core.algorithm.state.StateManager;
+import jsprit.core.algorithm.state.UpdateActivityTimes;
+import jsprit.core.problem.VehicleRoutingProblem;
+import jsprit.core.problem.driver.DriverImpl;
+import jsprit.core.problem.io.VrpXMLReader;
+import jsprit.core.problem.job.Job;
+import jsprit.core.problem.job.Service;
+import jsprit.core.problem.misc.JobInsertionContext;
+import jsprit.core.problem.solution.route.RouteActivityVisitor;
+import jsprit.core.problem.solution.route.VehicleRoute;
+import jsprit.core.problem.solution.route.activity.ServiceActivity;
+import jsprit.core.problem.solution.route.activity.TourActivity;
+import jsprit.core.problem.vehicle.Vehicle;
+import jsprit.core.util.VehicleRoutingTransportCostsMatrix;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Calculates the soft costs of {@link AbeProblemMinMax.PenalizeShiftOfMaxTransportTime} for all insertion positions of the last job 
+ * of input/abe/abrahamProblem.xml into a route that serves all other jobs (with input/abe/Matrix.txt).
+ * 
+ * @author schroeder
+ * 
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MinMaxConstraintBenchmark {
+	
+	private AbeProblemMinMax.PenalizeShiftOfMaxTransportTime constraint;
+	
+	private VehicleRoute route;
+	
+	private Vehicle vehicle;
+	
+	private Service newService;
+	
+	private TourActivity newAct;
+	
+	private TourActivity[] activities;
+	
+	@Setup
+	public void setup() throws IOException{
+		VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+		new VrpXMLReader(vrpBuilder).read("input/abe/abrahamProblem.xml");
+		VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(true);
+		new MatrixReader(matrixBuilder).read("input/abe/Matrix.txt");
+		vrpBuilder.setRoutingCost(matrixBuilder.build());
+		VehicleRoutingProblem problem = vrpBuilder.build();
+		
+		vehicle = problem.getVehicles().iterator().next();
+		VehicleRoute.Builder routeBuilder = VehicleRoute.Builder.newInstance(vehicle, DriverImpl.noDriver());
+		for(Job job : problem.getJobs().values()){
+			if(newService != null) routeBuilder.addService(newService);
+			newService = (Service) job;
+		}
+		route = routeBuilder.build();
+		
+		StateManager stateManager = new StateManager(problem.getTransportCosts());
+		RouteMaxHeap transportTimes = new RouteMaxHeap();
+		RouteActivityVisitor routeVisitor = new RouteActivityVisitor();
+		routeVisitor.addActivityVisitor(new UpdateActivityTimes(problem.getTransportCosts()));
+		routeVisitor.addActivityVisitor(new AbeProblemMinMax.UpdateMaxTransportTime(stateManager, problem.getTransportCosts(), transportTimes));
+		routeVisitor.visit(route);
+		
+		constraint = new AbeProblemMinMax.PenalizeShiftOfMaxTransportTime(problem.getTransportCosts(), transportTimes, 3.);
+		newAct = ServiceActivity.newInstance(newService);
+		List<TourActivity> routeActivities = route.getActivities();
+		activities = new TourActivity[routeActivities.size()+2];
+		activities[0] = route.getStart();
+		for(int i=0;i<routeActivities.size();i++) activities[i+1] = routeActivities.get(i);
+		activities[activities.length-1] = route.getEnd();
+	}
+	
+	@Benchmark
+	public void allInsertionPositions(Blackhole blackhole){
+		JobInsertionContext iFacts = new JobInsertionContext(route, newService, vehicle, route.getDriver(), route.getDepartureTime());
+		for(int i=1;i<activities.length;i++){
+			TourActivity prevAct = activities[i-1];
+			blackhole.consume(constraint.getCosts(iFacts, prevAct, newAct, activities[i], prevAct.getEndTime()));
+		}
+	}
+
+}
@@ -0,0 +1,229 @@
+package abe;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import jsprit.core.algorithm.io.VehicleRoutingAlgorithms;
+import jsprit.core.algorithm.listener.IterationEndsListener;
+import jsprit.core.problem.VehicleRoutingProblem;
+import jsprit.core.problem.io.VrpXMLReader;
+import jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import jsprit.core.util.RandomNumberGeneration;
+import jsprit.core.util.Solutions;
+import jsprit.core.util.VehicleRoutingTransportCostsMatrix;
+import jsprit.instance.reader.SolomonReader;
+
+/**
+ * Runs full searches on all bundled instances with all bundled algorithm configs and fixed seeds, and appends one line per run 
+ * to output/benchmark/solverThroughput.csv, i.e.
+ * 
+ * <p>date;label;instance;config;seed;iterations;seconds;iterationsPerSecond;secondsToTarget;secondsToBest;bestCost;peakHeapMB
+ * 
+ * <p>secondsToTarget is the time until a solution within 2% of the best known cost has been found (empty if there is no best known
+ * cost or it has not been reached), secondsToBest the time until the final best solution has been found. Runs are sequential, 
+ * since jsprit's random number generator is static. 
+ * 
+ * <p>Run it from the project directory with [label] [nuOfSeeds] [nuOfIterations], where label tags the version (default: "dev"), 
+ * nuOfSeeds defaults to 3 and nuOfIterations defaults to the number of iterations of the config.
+ * 
+ * @author schroeder
+ * 
+ */
+public class SolverThroughputBenchmark {
+	
+	static final String HISTORY_FILE = "output/benchmark/solverThroughput.csv";
+	
+	static final List<String> CONFIGS = Arrays.asList("input/abe/algorithmConfig.xml", "input/sschroeder/rr_ta.xml");
+	
+	static final double TARGET_GAP = 0.02;
+	
+	static abstract class Instance {
+		
+		final String name;
+		
+		final double bestKnownCost;
+		
+		Instance(String name, double bestKnownCost) {
+			super();
+			this.name = name;
+			this.bestKnownCost = bestKnownCost;
+		}
+		
+		abstract VehicleRoutingProblem createProblem() throws IOException;
+		
+	}
+	
+	static List<Instance> createInstances(){
+		return Arrays.asList(
+				new Instance("C101_solomon", 828.94) {
+			
+					@Override
+					VehicleRoutingProblem createProblem() {
+						VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+						new SolomonReader(vrpBuilder).read("input/sschroeder/C101_solomon.txt");
+						return vrpBuilder.build();
+					}
+					
+				},
+				new Instance("cordeau_p01", 576.87) {
+					
+					@Override
+					VehicleRoutingProblem createProblem() {
+						return readXml("input/sschroeder/cordeau_p01.xml");
+					}
+					
+				},
+				new Instance("vrp_cordeau_01", Double.NaN) {
+					
+					@Override
+					VehicleRoutingProblem createProblem() {
+						//services of p01 with the depots of MultipleDepotTimeCostSensitivity
+						ProblemTemplate template = ProblemTemplate.read("input/abe/vrp_cordeau_01.xml");
+						return MultipleDepotTimeCostSensitivity.createProblemBuilder(template, 0.).build();
+					}
+					
+				},
+				new Instance("vrpnc1", 524.61) {
+					
+					@Override
+					VehicleRoutingProblem createProblem() {
+						return readXml("input/stackoverflow/vrpnc1-jsprit.xml");
+					}
+					
+				},
+				new Instance("abrahamProblem", Double.NaN) {
+					
+					@Override
+					VehicleRoutingProblem createProblem() throws IOException {
+						VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+						new VrpXMLReader(vrpBuilder).read("input/abe/abrahamProblem.xml");
+						VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(true);
+						new MatrixReader(matrixBuilder).read("input/abe/Matrix.txt");
+						vrpBuilder.setRoutingCost(matrixBuilder.build());
+						return vrpBuilder.build();
+					}
+					
+				});
+	}
+	
+	private static VehicleRoutingProblem readXml(String filename){
+		VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+		new VrpXMLReader(vrpBuilder).read(filename);
+		return vrpBuilder.build();
+	}
+	
+	/**
+	 * Tracks iterations, and when the target and the best cost have been reached.
+	 */
+	static class Progress implements IterationEndsListener {
+		
+		private final double targetCost;
+		
+		private final long startTime;
+		
+		int iterations = 0;
+		
+		double bestCost = Double.MAX_VALUE;
+		
+		long timeToBest = -1;
+		
+		long timeToTarget = -1;
+		
+		Progress(double targetCost, long startTime) {
+			super();
+			this.targetCost = targetCost;
+			this.startTime = startTime;
+		}
+		
+		@Override
+		public void informIterationEnds(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+			iterations++;
+			double cost = Solutions.bestOf(solutions).getCost();
+			if(cost < bestCost){
+				bestCost = cost;
+				timeToBest = System.nanoTime() - startTime;
+			}
+			if(timeToTarget < 0 && cost <= targetCost){
+				timeToTarget = System.nanoTime() - startTime;
+			}
+		}
+		
+	}
+	
+	public static void main(String[] args) throws IOException {
+		String label = args.length > 0 ? args[0] : "dev";
+		int nuOfSeeds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+		int nuOfIterations = args.length > 2 ? Integer.parseInt(args[2]) : -1;
+		
+		File historyFile = new File(HISTORY_FILE);
+		historyFile.getParentFile().mkdirs();
+		boolean writeHeader = !historyFile.exists();
+		String date = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss").format(new Date());
+		
+		BufferedWriter writer = new BufferedWriter(new FileWriter(historyFile, true));
+		try{
+			if(writeHeader){
+				writer.write("date;label;instance;config;seed;iterations;seconds;iterationsPerSecond;secondsToTarget;secondsToBest;bestCost;peakHeapMB\n");
+			}
+			for(Instance instance : createInstances()){
+				VehicleRoutingProblem problem = instance.createProblem();
+				for(String config : CONFIGS){
+					for(int seed=0;seed<nuOfSeeds;seed++){
+						RandomNumberGeneration.setSeed(seed);
+						VehicleRoutingAlgorithm algorithm = VehicleRoutingAlgorithms.readAndCreateAlgorithm(problem, config);
+						if(nuOfIterations > 0) algorithm.setNuOfIterations(nuOfIterations);
+						
+						System.gc();
+						resetPeakHeap();
+						long startTime = System.nanoTime();
+						Progress progress = new Progress(instance.bestKnownCost*(1. + TARGET_GAP), startTime);
+						algorithm.addListener(progress);
+						VehicleRoutingProblemSolution best = Solutions.bestOf(algorithm.searchSolutions());
+						double seconds = (System.nanoTime() - startTime) / 1e9;
+						
+						String configName = new File(config).getParentFile().getName() + "/" + new File(config).getName();
+						writer.write(date + ";" + label + ";" + instance.name + ";" + configName + ";" + seed + ";" + progress.iterations + ";" 
+								+ seconds + ";" + (progress.iterations / seconds) + ";" + toSeconds(progress.timeToTarget) + ";" 
+								+ toSeconds(progress.timeToBest) + ";" + best.getCost() + ";" + getPeakHeap() / (1024*1024) + "\n");
+						writer.flush();
+						System.out.println(instance.name + " " + configName + " seed=" + seed + " its/s=" + (progress.iterations / seconds) + " cost=" + best.getCost());
+					}
+				}
+			}
+		}
+		finally{
+			writer.close();
+		}
+	}
+	
+	private static String toSeconds(long nanos){
+		if(nanos < 0) return "";
+		return String.valueOf(nanos / 1e9);
+	}
+	
+	private static void resetPeakHeap(){
+		for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()){
+			if(pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+		}
+	}
+	
+	private static long getPeakHeap(){
+		long peak = 0;
+		for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()){
+			if(pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+		}
+		return peak;
+	}
+
+}
@@ -0,0 +1,94 @@
+package sschroeder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import jsprit.core.algorithm.state.StateManager;
+import jsprit.core.algorithm.state.UpdateActivityTimes;
+import jsprit.core.problem.VehicleRoutingProblem;
+import jsprit.core.problem.driver.DriverImpl;
+import jsprit.core.problem.job.Job;
+import jsprit.core.problem.job.Service;
+import jsprit.core.problem.solution.route.ReverseRouteActivityVisitor;
+import jsprit.core.problem.solution.route.RouteActivityVisitor;
+import jsprit.core.problem.solution.route.VehicleRoute;
+import jsprit.core.problem.vehicle.Vehicle;
+import jsprit.instance.reader.SolomonReader;
+
+/**
+ * Route of the first vehicle of C101 with nuOfActivities services ordered by the start of their time windows. If there are 
+ * more activities than services in C101, services are copied (same location and time window, other id). 
+ * 
+ * <p>Activity times, latest activity starts, cumulated waiting times and the departure are up-to-date, i.e. states are as they
+ * are when the insertion starts.
+ * 
+ * @author schroeder
+ * 
+ */
+class SolomonRouteFixture {
+	
+	static final String INSTANCE = "input/sschroeder/C101_solomon.txt";
+	
+	final VehicleRoutingProblem problem;
+	
+	final Vehicle vehicle;
+	
+	final VehicleRoute route;
+	
+	final Service newService;
+	
+	final StateManager states;
+	
+	final ActivityDoubleStates latestActivityStarts = new ActivityDoubleStates();
+	
+	final ActivityDoubleStates cumulatedWaitingTimes = new ActivityDoubleStates();
+	
+	SolomonRouteFixture(int nuOfActivities) {
+		super();
+		VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+		new SolomonReader(vrpBuilder).read(INSTANCE);
+		problem = vrpBuilder.build();
+		vehicle = problem.getVehicles().iterator().next();
+		
+		List<Service> services = new ArrayList<Service>();
+		for(Job job : problem.getJobs().values()) services.add((Service) job);
+		Collections.sort(services, new Comparator<Service>() {
+			
+			@Override
+			public int compare(Service s1, Service s2) {
+				return Double.compare(s1.getTimeWindow().getStart(), s2.getTimeWindow().getStart());
+			}
+			
+		});
+		
+		VehicleRoute.Builder routeBuilder = VehicleRoute.Builder.newInstance(vehicle, DriverImpl.noDriver());
+		for(int i=0;i<nuOfActivities;i++){
+			Service service = services.get(i % services.size());
+			if(i < services.size()) routeBuilder.addService(service);
+			else routeBuilder.addService(copy(service, service.getId() + "_" + i));
+		}
+		route = routeBuilder.build();
+		newService = copy(services.get(services.size() / 2), "new");
+		
+		RouteActivityVisitor activityTimes = new RouteActivityVisitor();
+		activityTimes.addActivityVisitor(new UpdateActivityTimes(problem.getTransportCosts()));
+		activityTimes.visit(route);
+		
+		states = new StateManager(problem.getTransportCosts());
+		RouteActivityVisitor forwardStates = new RouteActivityVisitor();
+		forwardStates.addActivityVisitor(new UpdateCumulatedWaitingTimes(states, problem.getTransportCosts(), cumulatedWaitingTimes));
+		forwardStates.addActivityVisitor(new UpdateDepartureTime(states, problem.getTransportCosts()));
+		forwardStates.visit(route);
+		ReverseRouteActivityVisitor backwardStates = new ReverseRouteActivityVisitor();
+		backwardStates.addActivityVisitor(new UpdateDepartureTimeAndPracticalTimeWindows(states, latestActivityStarts, problem.getTransportCosts()));
+		backwardStates.visit(route);
+	}
+	
+	private static Service copy(Service service, String id){
+		return Service.Builder.newInstance(id).addSizeDimension(0, service.getSize().get(0)).setLocationId(service.getLocationId())
+				.setCoord(service.getCoord()).setTimeWindow(service.getTimeWindow()).setServiceTime(service.getServiceDuration()).build();
+	}
+
+}
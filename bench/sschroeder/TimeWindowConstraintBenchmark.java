@@ -0,0 +1,69 @@
+package sschroeder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import jsprit.core.problem.misc.JobInsertionContext;
+import jsprit.core.problem.solution.route.activity.ServiceActivity;
+import jsprit.core.problem.solution.route.activity.TourActivity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Checks {@link TimeWindowConstraintWithDriverTime} for all insertion positions of a new activity, i.e. as the insertion heuristic
+ * does for one route (but without breaking on NOT_FULFILLED_BREAK). 
+ * 
+ * @author schroeder
+ * 
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TimeWindowConstraintBenchmark {
+	
+	@Param({ "10", "100", "1000" })
+	public int nuOfActivities;
+	
+	@Param({ "230", "100000" })
+	public double maxDriverTime;
+	
+	private SolomonRouteFixture fixture;
+	
+	private TimeWindowConstraintWithDriverTime constraint;
+	
+	private TourActivity newAct;
+	
+	private TourActivity[] activities;
+	
+	@Setup
+	public void setup(){
+		fixture = new SolomonRouteFixture(nuOfActivities);
+		constraint = new TimeWindowConstraintWithDriverTime(fixture.states, fixture.latestActivityStarts, fixture.cumulatedWaitingTimes, 
+				fixture.problem.getTransportCosts(), maxDriverTime);
+		newAct = ServiceActivity.newInstance(fixture.newService);
+		List<TourActivity> routeActivities = fixture.route.getActivities();
+		activities = new TourActivity[routeActivities.size()+2];
+		activities[0] = fixture.route.getStart();
+		for(int i=0;i<routeActivities.size();i++) activities[i+1] = routeActivities.get(i);
+		activities[activities.length-1] = fixture.route.getEnd();
+	}
+	
+	@Benchmark
+	public void allInsertionPositions(Blackhole blackhole){
+		JobInsertionContext iFacts = new JobInsertionContext(fixture.route, fixture.newService, fixture.vehicle, fixture.route.getDriver(), 
+				fixture.route.getDepartureTime());
+		for(int i=1;i<activities.length;i++){
+			TourActivity prevAct = activities[i-1];
+			blackhole.consume(constraint.fulfilled(iFacts, prevAct, newAct, activities[i], prevAct.getEndTime()));
+		}
+	}
+
+}
@@ -0,0 +1,54 @@
+package sschroeder;
+
+import java.util.concurrent.TimeUnit;
+
+import jsprit.core.problem.solution.route.ReverseRouteActivityVisitor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Updates latest activity starts of a route with {@link UpdateDepartureTimeAndPracticalTimeWindows}. In incremental mode, the route
+ * does not change between invocations, i.e. this measures the best case of incremental updates (propagation stops at the last 
+ * activity).
+ * 
+ * @author schroeder
+ * 
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UpdateLatestActivityStartsBenchmark {
+	
+	@Param({ "10", "100", "1000" })
+	public int nuOfActivities;
+	
+	@Param({ "false", "true" })
+	public boolean incremental;
+	
+	private SolomonRouteFixture fixture;
+	
+	private ReverseRouteActivityVisitor routeVisitor;
+	
+	@Setup
+	public void setup(){
+		fixture = new SolomonRouteFixture(nuOfActivities);
+		UpdateDepartureTimeAndPracticalTimeWindows updater = new UpdateDepartureTimeAndPracticalTimeWindows(fixture.states, 
+				new ActivityDoubleStates(), fixture.problem.getTransportCosts());
+		updater.setIncremental(incremental);
+		routeVisitor = new ReverseRouteActivityVisitor();
+		routeVisitor.addActivityVisitor(updater);
+	}
+	
+	@Benchmark
+	public void updateRoute(){
+		routeVisitor.visit(fixture.route);
+	}
+
+}
@@ -9,14 +9,10 @@ import jsprit.analysis.toolbox.Plotter.Label;
 import jsprit.core.algorithm.VehicleRoutingAlgorithm;
 import jsprit.core.algorithm.io.VehicleRoutingAlgorithms;
 import jsprit.core.problem.VehicleRoutingProblem;
-import jsprit.core.problem.cost.AbstractForwardVehicleRoutingTransportCosts;
-import jsprit.core.problem.cost.VehicleRoutingTransportCosts;
-import jsprit.core.problem.driver.Driver;
 import jsprit.core.problem.io.VrpXMLReader;
 import jsprit.core.problem.solution.VehicleRoutingProblemSolution;
 import jsprit.core.problem.solution.route.VehicleRoute;
 import jsprit.core.problem.solution.route.activity.TourActivity;
-import jsprit.core.problem.vehicle.Vehicle;
 import jsprit.core.reporting.SolutionPrinter;
 import jsprit.core.reporting.SolutionPrinter.Print;
 import jsprit.core.util.Solutions;
@@ -33,32 +29,10 @@ public class AbeProblemFastRelation {
 		matrixReader.read("input/abe/abraham/Matrix.txt");
 //		VehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
 		
-		VehicleRoutingTransportCosts costs = new AbstractForwardVehicleRoutingTransportCosts() {
-			
-			@Override
-			public double getTransportTime(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
-				double defaultVelocity = 1;
+		SpeedProfileCosts costs = SpeedProfileCosts.Builder.newInstance(matrixReader.getCostMatrix()).setTimeFromDistance(true)
 				//fast connection on relation 17 --> 16
-				if(fromId.equals("17") && toId.equals("16")){
-					return getDistance(fromId, toId)/100.;
-				}
-				return getDistance(fromId, toId)/defaultVelocity;
-			}
-			
-			@Override
-			public double getTransportCost(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) { 
-				if(vehicle != null){
-					return vehicle.getType().getVehicleCostParams().perDistanceUnit*getDistance(fromId,toId)
-							+ vehicle.getType().getVehicleCostParams().perTimeUnit*getTransportTime(fromId, toId, departureTime, driver, vehicle);
-				}
-				return getDistance(fromId,toId);
-			}
-
-			private double getDistance(String fromId, String toId) {
-				return matrixReader.getDistance(fromId, toId);
-			}
-			
-		};
+				.setRelationFactor("17", "16", 1./100.)
+				.build(vrpBuilder.getAddedVehicles());
 		
 		vrpBuilder.setRoutingCost(costs);
 		VehicleRoutingProblem problem = vrpBuilder.build();
@@ -8,14 +8,10 @@ import jsprit.analysis.toolbox.Plotter;
 import jsprit.core.algorithm.VehicleRoutingAlgorithm;
 import jsprit.core.algorithm.io.VehicleRoutingAlgorithms;
 import jsprit.core.problem.VehicleRoutingProblem;
-import jsprit.core.problem.cost.AbstractForwardVehicleRoutingTransportCosts;
-import jsprit.core.problem.cost.VehicleRoutingTransportCosts;
-import jsprit.core.problem.driver.Driver;
 import jsprit.core.problem.io.VrpXMLReader;
 import jsprit.core.problem.solution.VehicleRoutingProblemSolution;
 import jsprit.core.problem.solution.route.VehicleRoute;
 import jsprit.core.problem.solution.route.activity.TourActivity;
-import jsprit.core.problem.vehicle.Vehicle;
 import jsprit.core.reporting.SolutionPrinter;
 import jsprit.core.reporting.SolutionPrinter.Print;
 import jsprit.core.util.Solutions;
@@ -32,33 +28,9 @@ public class AbeProblemFastVehicle {
 		matrixReader.read("input/abe/Matrix.txt");
 //		VehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
 		
-		VehicleRoutingTransportCosts costs = new AbstractForwardVehicleRoutingTransportCosts() {
-			
-			@Override
-			public double getTransportTime(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
-				double defaultVelocity = 1;
-				if(vehicle != null){
-					if(vehicle.getId().equals("2MF2CC04AA")){
-						return getDistance(fromId, toId)/5.;
-					}
-				}
-				return getDistance(fromId, toId)/defaultVelocity;
-			}
-			
-			@Override
-			public double getTransportCost(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
-				if(vehicle != null){
-					return vehicle.getType().getVehicleCostParams().perDistanceUnit*getDistance(fromId,toId)
-							+ vehicle.getType().getVehicleCostParams().perTimeUnit*getTransportTime(fromId, toId, departureTime, driver, vehicle);
-				}
-				return getDistance(fromId,toId);
-			}
-
-			private double getDistance(String fromId, String toId) {
-				return matrixReader.getDistance(fromId, toId);
-			}
-			
-		};
+		SpeedProfileCosts costs = SpeedProfileCosts.Builder.newInstance(matrixReader.getCostMatrix()).setTimeFromDistance(true)
+				.addProfile("fast", 1./5.).setVehicleProfile("2MF2CC04AA", "fast")
+				.build(vrpBuilder.getAddedVehicles());
 		
 		vrpBuilder.setRoutingCost(costs);
 		VehicleRoutingProblem problem = vrpBuilder.build();
@@ -43,17 +43,23 @@ public class AbeProblemInverseTimeDistance {
 			
 			@Override
 			public double getTransportTime(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+				return getTransportTime(getDistance(fromId, toId));
+			}
+			
+			private double getTransportTime(double distance) {
 				//just a mean to 'inverse' transport times such that the longest relations become the fastest and the other way around
-				return 4000. - getDistance(fromId, toId);
+				return 4000. - distance;
 			}
 			
 			@Override
 			public double getTransportCost(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+				//distance is looked up once, and transport time is derived from it
+				double distance = getDistance(fromId,toId);
 				if(vehicle != null){
-					return vehicle.getType().getVehicleCostParams().perDistanceUnit*getDistance(fromId,toId)
-							+ vehicle.getType().getVehicleCostParams().perTimeUnit*getTransportTime(fromId, toId, departureTime, driver, vehicle);
+					return vehicle.getType().getVehicleCostParams().perDistanceUnit*distance
+							+ vehicle.getType().getVehicleCostParams().perTimeUnit*getTransportTime(distance);
 				}
-				return getDistance(fromId,toId);
+				return distance;
 			}
 
 			private double getDistance(String fromId, String toId) {
@@ -1,12 +1,17 @@
 package abe;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 import jsprit.analysis.toolbox.AlgorithmSearchProgressChartListener;
 import jsprit.analysis.toolbox.Plotter;
 import jsprit.core.algorithm.VehicleRoutingAlgorithm;
 import jsprit.core.algorithm.VehicleRoutingAlgorithmBuilder;
+import jsprit.core.algorithm.recreate.listener.InsertionEndsListener;
+import jsprit.core.algorithm.recreate.listener.InsertionStartsListener;
 import jsprit.core.algorithm.recreate.VariableTransportCostCalculator;
 import jsprit.core.algorithm.state.StateManager;
 import jsprit.core.algorithm.state.StateUpdater;
@@ -17,6 +22,7 @@ import jsprit.core.problem.constraint.SoftActivityConstraint;
 import jsprit.core.problem.cost.ForwardTransportTime;
 import jsprit.core.problem.cost.VehicleRoutingTransportCosts;
 import jsprit.core.problem.io.VrpXMLReader;
+import jsprit.core.problem.job.Job;
 import jsprit.core.problem.misc.JobInsertionContext;
 import jsprit.core.problem.solution.SolutionCostCalculator;
 import jsprit.core.problem.solution.VehicleRoutingProblemSolution;
@@ -24,42 +30,48 @@ import jsprit.core.problem.solution.route.VehicleRoute;
 import jsprit.core.problem.solution.route.activity.ActivityVisitor;
 import jsprit.core.problem.solution.route.activity.End;
 import jsprit.core.problem.solution.route.activity.TourActivity;
-import jsprit.core.problem.solution.route.state.StateFactory;
-import jsprit.core.problem.solution.route.state.StateFactory.StateId;
 import jsprit.core.reporting.SolutionPrinter;
 import jsprit.core.reporting.SolutionPrinter.Print;
 import jsprit.core.util.ActivityTimeTracker;
 import jsprit.core.util.CalculationUtils;
-import jsprit.core.util.Solutions;
 import jsprit.core.util.VehicleRoutingTransportCostsMatrix;
 
 public class AbeProblemMinMax {
 	
 	/*
-	 * This updates the state "max-transport-time" which is introduced below. Once either the insertion procedure starts or a job has
-	 * been inserted, UpdateMaxTransportTime is called for the route that has been changed.
+	 * This updates the state "route-transport-time" which is introduced below, and keeps the transport times of all routes in a RouteMaxHeap. 
+	 * Once either the insertion procedure starts or a job has been inserted, UpdateMaxTransportTime is called for the route that has been changed.
 	 * 
 	 * It must not only be an ActivityVisitor which indicates that the update procedure starts at the beginning of route all the way to end 
 	 * (in contrary to the ReverseActivityVisitor) but also be a StateUpdater which is just a marker to register it in the StateManager.
 	 * 
-	 * You do not need to declare this as static inner class. You can just choose your preferred approach. However, be aware
-	 * that this requires the stateName "max-transport-time" you define below. If you choose to define this as class in a new file, 
-	 * you might define "max-transport-time" as static id in another file, to make sure you do not have type errors etc..
+	 * Since each route update is an update of the heap, the max transport time also decreases if the longest route has been ruined, and it
+	 * can be retrieved in O(1) (each update is O(log R)). Routes that do not belong to the solution anymore are removed once the insertion starts,
+	 * and empty routes (which are removed from the solution by the insertion) are removed once the insertion ends.
+	 * 
+	 * You do not need to declare this as static inner class. You can just choose your preferred approach. The state id is defined
+	 * as static id in StateIds, such that it is not created in hot paths.
 	 */
-	static class UpdateMaxTransportTime implements ActivityVisitor, StateUpdater {
+	static class UpdateMaxTransportTime implements ActivityVisitor, StateUpdater, InsertionStartsListener, InsertionEndsListener {
 
 		private StateManager stateManager;
 		
 		private ActivityTimeTracker timeTracker;
 		
-		public UpdateMaxTransportTime(StateManager stateManager, ForwardTransportTime transportTime) {
+		private RouteMaxHeap transportTimes;
+		
+		private VehicleRoute route;
+		
+		public UpdateMaxTransportTime(StateManager stateManager, ForwardTransportTime transportTime, RouteMaxHeap transportTimes) {
 			super();
 			this.stateManager = stateManager;
 			this.timeTracker = new ActivityTimeTracker(transportTime);
+			this.transportTimes = transportTimes;
 		}
 		
 		@Override
 		public void begin(VehicleRoute route) {
+			this.route = route;
 			timeTracker.begin(route);
 		}
 
@@ -71,16 +83,141 @@ public class AbeProblemMinMax {
 		@Override
 		public void finish() {
 			timeTracker.finish();
-			double newRouteEndTime = timeTracker.getActArrTime();
-			double currentMaxTransportTime = stateManager.getProblemState(StateFactory.createId("max-transport-time"), Double.class);
-			if(newRouteEndTime > currentMaxTransportTime){
-				stateManager.putProblemState(StateFactory.createId("max-transport-time"), Double.class, newRouteEndTime);
+			double transportTime = timeTracker.getActArrTime() - route.getDepartureTime();
+			stateManager.putTypedRouteState(route, StateIds.ROUTE_TRANSPORT_TIME, Double.class, transportTime);
+			transportTimes.update(route, transportTime);
+		}
+
+		@Override
+		public void informInsertionStarts(Collection<VehicleRoute> vehicleRoutes, Collection<Job> unassignedJobs) {
+			transportTimes.retainAll(vehicleRoutes);
+		}
+
+		@Override
+		public void informInsertionEnds(Collection<VehicleRoute> vehicleRoutes) {
+			List<VehicleRoute> nonEmptyRoutes = new ArrayList<VehicleRoute>(vehicleRoutes.size());
+			for(VehicleRoute route : vehicleRoutes){
+				if(!route.isEmpty()) nonEmptyRoutes.add(route);
+			}
+			transportTimes.retainAll(nonEmptyRoutes);
+		}
+		
+	}
+	
+	/*
+	 * Objective that minimizes max transport time first, and second, overall transport time (scaled with scalingParameter).
+	 * 
+	 * Usually the objective is calculated for the solution that has just been updated by the stateManager, thus max and sum
+	 * can be fetched from the heap and routes need not to be scanned. However, if the heap does not match the solution's routes 
+	 * (e.g. the objective is calculated for another solution), max and sum are calculated from the solution's route states. 
+	 */
+	static class MinMaxTransportTimeObjective implements SolutionCostCalculator {
+		
+		private final StateManager stateManager;
+		
+		private final RouteMaxHeap transportTimes;
+		
+		private final double scalingParameter;
+		
+		public MinMaxTransportTimeObjective(StateManager stateManager, RouteMaxHeap transportTimes, double scalingParameter) {
+			super();
+			this.stateManager = stateManager;
+			this.transportTimes = transportTimes;
+			this.scalingParameter = scalingParameter;
+		}
+
+		@Override
+		public double getCosts(VehicleRoutingProblemSolution solution) {
+			if(heapMatches(solution.getRoutes())){
+				return transportTimes.getMax() + scalingParameter*transportTimes.getSum();
+			}
+			double max = 0.;
+			double sum = 0.;
+			for(VehicleRoute route : solution.getRoutes()){
+				if(route.isEmpty()) continue;
+				Double transportTime = stateManager.getRouteState(route, StateIds.ROUTE_TRANSPORT_TIME, Double.class);
+				if(transportTime == null) transportTime = route.getEnd().getArrTime() - route.getDepartureTime();
+				max = Math.max(max, transportTime);
+				sum += transportTime;
 			}
+			return max + scalingParameter*sum;
+		}
+
+		private boolean heapMatches(Collection<VehicleRoute> routes) {
+			int nuOfRoutes = 0;
+			for(VehicleRoute route : routes){
+				if(route.isEmpty()) continue;
+				if(!transportTimes.contains(route)) return false;
+				nuOfRoutes++;
+			}
+			return nuOfRoutes == transportTimes.size();
 		}
 		
 	}
 	
-	public static void main(String[] args) throws IOException {
+	/*
+	 * Soft constraint that penalyzes a shift of max-route transport time, i.e. once the insertion heuristic tries to insert a jobActivity 
+	 * at position which results in a shift of max-transport-time, it is penalyzed with penaltyForEachTimeUnitAboveCurrentMaxTime.
+	 */
+	static class PenalizeShiftOfMaxTransportTime implements SoftActivityConstraint {
+		
+		private final VehicleRoutingTransportCosts routingCosts;
+		
+		private final RouteMaxHeap transportTimes;
+		
+		private final double penaltyForEachTimeUnitAboveCurrentMaxTime;
+		
+		public PenalizeShiftOfMaxTransportTime(VehicleRoutingTransportCosts routingCosts, RouteMaxHeap transportTimes, double penaltyForEachTimeUnitAboveCurrentMaxTime) {
+			super();
+			this.routingCosts = routingCosts;
+			this.transportTimes = transportTimes;
+			this.penaltyForEachTimeUnitAboveCurrentMaxTime = penaltyForEachTimeUnitAboveCurrentMaxTime;
+		}
+		
+		@Override
+		public double getCosts(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double depTimeAtPrevAct) {
+			/*
+			 * determines maximum of all routes' transport times, which is kept up-to-date by UpdateMaxTransportTime
+			 */
+			double maxTime = transportTimes.getMax();
+			/*
+			 * determines additional time of route when inserting newAct between prevAct and nextAct
+			 * 
+			 */
+			double tp_time_prevAct_newAct = routingCosts.getTransportTime(prevAct.getLocationId(), newAct.getLocationId(), depTimeAtPrevAct, iFacts.getNewDriver(), iFacts.getNewVehicle());
+			double newAct_arrTime = depTimeAtPrevAct + tp_time_prevAct_newAct;
+			double newAct_endTime = CalculationUtils.getActivityEndTime(newAct_arrTime, newAct);
+			/*
+			 * open routes - if route is set to be open, i.e. end is endogeneously determined by the algorithm, then inserting of newAct between prevAct
+			 * and end just shifts the route's end time to by tp_time_prevAct_newAct 
+			 * 
+			 */
+			if(nextAct instanceof End){
+				if(!iFacts.getNewVehicle().isReturnToDepot()){
+					double additionalTime = tp_time_prevAct_newAct;
+					double new_routes_transport_time = iFacts.getRoute().getEnd().getArrTime() - iFacts.getRoute().getStart().getEndTime() + additionalTime;
+					return penaltyForEachTimeUnitAboveCurrentMaxTime*Math.max(0,new_routes_transport_time-maxTime);
+				}
+			}
+			double tp_time_newAct_nextAct = routingCosts.getTransportTime(newAct.getLocationId(), nextAct.getLocationId(), newAct_endTime, iFacts.getNewDriver(), iFacts.getNewVehicle());
+			double nextAct_arrTime = newAct_endTime + tp_time_newAct_nextAct;
+			double oldTime;
+			if(iFacts.getRoute().isEmpty()){
+				oldTime = (nextAct.getArrTime() - depTimeAtPrevAct);
+			}
+			else{
+				oldTime = (nextAct.getArrTime() - iFacts.getRoute().getDepartureTime());
+			}
+			double additionalTime = (nextAct_arrTime - iFacts.getNewDepTime()) - oldTime;				
+			double tpTime = iFacts.getRoute().getEnd().getArrTime() - iFacts.getRoute().getStart().getEndTime() + additionalTime;
+			
+			return penaltyForEachTimeUnitAboveCurrentMaxTime*Math.max(0,tpTime-maxTime);
+			
+		}
+		
+	}
+	
+	public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
 		VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
 		new VrpXMLReader(vrpBuilder).read("input/abe/abrahamProblem.xml");
 		VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(true);
@@ -92,37 +229,51 @@ public class AbeProblemMinMax {
 		final VehicleRoutingProblem problem = vrpBuilder.build();
 
 		/*
-		 * Your custom objective function that min max transport times. Additionally you can try to consider overall transport times
-		 * in your objective as well. Thus you minimize max transport times first, and second, you minimize overall transport time. 
-		 * 
-		 * If you choose to consider overall transport times, makes sure you scale it appropriately.
+		 * Each start searches with its own algorithm, state manager, constraint manager and heap of transport times on a thread of its own. 
+		 * The problem (incl. its matrix) is immutable and shared by all starts.
 		 */
-		SolutionCostCalculator objectiveFunction = new SolutionCostCalculator() {
-			
-			private double scalingParameter = 0.2;
+		int nuOfThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		int nuOfStarts = args.length > 1 ? Integer.parseInt(args[1]) : nuOfThreads;
+		VehicleRoutingProblemSolution bestSolution = new MultiStartSearch(nuOfThreads).search(nuOfStarts, new MultiStartSearch.AlgorithmFactory() {
 			
 			@Override
-			public double getCosts(VehicleRoutingProblemSolution solution) {
-				double maxTransportTime = 0.;
-				double sumTransportTimes = 0.;
-				for(VehicleRoute route : solution.getRoutes()){
-					double tpTime = route.getEnd().getArrTime() - route.getStart().getEndTime();
-					sumTransportTimes+=tpTime;
-					if(tpTime > maxTransportTime){
-						maxTransportTime = tpTime; 
-					}
-				}
-				return maxTransportTime + scalingParameter*sumTransportTimes;
+			public VehicleRoutingAlgorithm createAlgorithm(int start) {
+				VehicleRoutingAlgorithm algo = AbeProblemMinMax.createAlgorithm(problem);
+				if(start == 0) algo.addListener(new AlgorithmSearchProgressChartListener("output/abe/progress.png"));
+				return algo;
 			}
-		};
+			
+		});
+		
+		Plotter plotter2 = new Plotter(problem,bestSolution);
+		plotter2.setShowFirstActivity(true);
+		plotter2.plot("output/abe/abeProblemWithSolution.png", "abe");
+		
+		SolutionPrinter.print(problem, bestSolution, Print.VERBOSE);
 		
-		final StateManager stateManager = new StateManager(problem.getTransportCosts());
-		//introduce a new state called "max-transport-time" 
-		StateId max_transport_time_state = StateFactory.createId("max-transport-time");
-		//add a default-state for "max-transport-time"
-		stateManager.addDefaultProblemState(max_transport_time_state, Double.class, 0.);
-		//
-		stateManager.addStateUpdater(new UpdateMaxTransportTime(stateManager,problem.getTransportCosts()));
+		System.out.println("total-time: " + getTotalTime(problem, bestSolution));
+		System.out.println("total-distance: " + getTotalDistance(matrixReader, bestSolution));
+		
+	}
+
+	/*
+	 * Creates the algorithm incl. state manager, constraint manager and objective function. They must not be shared by algorithms 
+	 * that search concurrently, since transportTimes is the state of one search.
+	 */
+	static VehicleRoutingAlgorithm createAlgorithm(final VehicleRoutingProblem problem) {
+		StateManager stateManager = new StateManager(problem.getTransportCosts());
+		//transport times of all routes, i.e. max and sum of transport times are always up-to-date
+		RouteMaxHeap transportTimes = new RouteMaxHeap();
+		//updates the state "route-transport-time" and the heap
+		stateManager.addStateUpdater(new UpdateMaxTransportTime(stateManager,problem.getTransportCosts(),transportTimes));
+		
+		/*
+		 * Your custom objective function that min max transport times. Additionally you can try to consider overall transport times
+		 * in your objective as well. Thus you minimize max transport times first, and second, you minimize overall transport time. 
+		 * 
+		 * If you choose to consider overall transport times, makes sure you scale it appropriately.
+		 */
+		SolutionCostCalculator objectiveFunction = new MinMaxTransportTimeObjective(stateManager, transportTimes, 0.2);
 		
 		/*
 		 * The insertion heuristics is controlled with your constraints
@@ -136,52 +287,7 @@ public class AbeProblemMinMax {
 		 *  penaltyForEachTimeUnitAboveCurrentMaxTime
 		 *  
 		 */
-		SoftActivityConstraint penalyzeShiftOfMaxTransportTime = new SoftActivityConstraint() {
-			private final VehicleRoutingTransportCosts routingCosts = problem.getTransportCosts();
-			
-			private final double penaltyForEachTimeUnitAboveCurrentMaxTime = 3.;
-			
-			@Override
-			public double getCosts(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double depTimeAtPrevAct) {
-				/*
-				 * determines maximum of all routes' transport times, which is here basically a state that can be fetched via the stateManager
-				 */
-				double maxTime = stateManager.getProblemState(StateFactory.createId("max-transport-time"), Double.class);
-				/*
-				 * determines additional time of route when inserting newAct between prevAct and nextAct
-				 * 
-				 */
-				double tp_time_prevAct_newAct = routingCosts.getTransportTime(prevAct.getLocationId(), newAct.getLocationId(), depTimeAtPrevAct, iFacts.getNewDriver(), iFacts.getNewVehicle());
-				double newAct_arrTime = depTimeAtPrevAct + tp_time_prevAct_newAct;
-				double newAct_endTime = CalculationUtils.getActivityEndTime(newAct_arrTime, newAct);
-				/*
-				 * open routes - if route is set to be open, i.e. end is endogeneously determined by the algorithm, then inserting of newAct between prevAct
-				 * and end just shifts the route's end time to by tp_time_prevAct_newAct 
-				 * 
-				 */
-				if(nextAct instanceof End){
-					if(!iFacts.getNewVehicle().isReturnToDepot()){
-						double additionalTime = tp_time_prevAct_newAct;
-						double new_routes_transport_time = iFacts.getRoute().getEnd().getArrTime() - iFacts.getRoute().getStart().getEndTime() + additionalTime;
-						return penaltyForEachTimeUnitAboveCurrentMaxTime*Math.max(0,new_routes_transport_time-maxTime);
-					}
-				}
-				double tp_time_newAct_nextAct = routingCosts.getTransportTime(newAct.getLocationId(), nextAct.getLocationId(), newAct_endTime, iFacts.getNewDriver(), iFacts.getNewVehicle());
-				double nextAct_arrTime = newAct_endTime + tp_time_newAct_nextAct;
-				double oldTime;
-				if(iFacts.getRoute().isEmpty()){
-					oldTime = (nextAct.getArrTime() - depTimeAtPrevAct);
-				}
-				else{
-					oldTime = (nextAct.getArrTime() - iFacts.getRoute().getDepartureTime());
-				}
-				double additionalTime = (nextAct_arrTime - iFacts.getNewDepTime()) - oldTime;				
-				double tpTime = iFacts.getRoute().getEnd().getArrTime() - iFacts.getRoute().getStart().getEndTime() + additionalTime;
-				
-				return penaltyForEachTimeUnitAboveCurrentMaxTime*Math.max(0,tpTime-maxTime);
-				
-			}
-		};
+		SoftActivityConstraint penalyzeShiftOfMaxTransportTime = new PenalizeShiftOfMaxTransportTime(problem.getTransportCosts(), transportTimes, 3.);
 		constraintManager.addConstraint(penalyzeShiftOfMaxTransportTime);
 		
 		VehicleRoutingAlgorithmBuilder algorithmBuilder = new VehicleRoutingAlgorithmBuilder(problem, "/Users/schroeder/Documents/jsprit/abraham/algorithmConfig_stefan.xml");
@@ -193,22 +299,10 @@ public class AbeProblemMinMax {
 		
 		VehicleRoutingAlgorithm algo = algorithmBuilder.build();
 
-		algo.addListener(new AlgorithmSearchProgressChartListener("output/abe/progress.png"));
 		VariationCoefficientTermination prematureAlgorithmTermination = new VariationCoefficientTermination(150, 0.001);
 		algo.addListener(prematureAlgorithmTermination);
 		algo.setPrematureAlgorithmTermination(prematureAlgorithmTermination);
-		
-		Collection<VehicleRoutingProblemSolution> solutions = algo.searchSolutions();
-		
-		Plotter plotter2 = new Plotter(problem,Solutions.bestOf(solutions));
-		plotter2.setShowFirstActivity(true);
-		plotter2.plot("output/abe/abeProblemWithSolution.png", "abe");
-		
-		SolutionPrinter.print(problem, Solutions.bestOf(solutions), Print.VERBOSE);
-		
-		System.out.println("total-time: " + getTotalTime(problem, Solutions.bestOf(solutions)));
-		System.out.println("total-distance: " + getTotalDistance(matrixReader, Solutions.bestOf(solutions)));
-		
+		return algo;
 	}
 
 	private static double getTotalDistance(MatrixReader matrix,VehicleRoutingProblemSolution bestOf) {
@@ -0,0 +1,152 @@
+package abe;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import jsprit.core.algorithm.io.VehicleRoutingAlgorithms;
+import jsprit.core.problem.VehicleRoutingProblem;
+import jsprit.core.problem.io.VrpXMLReader;
+import jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import jsprit.core.util.Solutions;
+import jsprit.core.util.VehicleRoutingTransportCostsMatrix;
+
+/**
+ * Searches with nuOfWorkers concurrent workers that exchange solutions via an {@link ElitePool}. 
+ * 
+ * <p>A worker searches in epochs of exchangeInterval iterations. After each epoch, it offers its best solution to the pool, and 
+ * continues from a randomly chosen elite if that is better than its own best (otherwise from its own best). Each epoch runs a new 
+ * algorithm created by the {@link MultiStartSearch.AlgorithmFactory} (with the index of the worker), thus state managers and
+ * constraint managers are never shared, and since the pool copies solutions, workers never share routes or activities either.
+ * 
+ * <p>Note that the initial solution of an epoch replaces the construction only if the algorithm (as the ones read by 
+ * VehicleRoutingAlgorithms) constructs a solution just if there is no initial one.
+ * 
+ * @author schroeder
+ * 
+ */
+public class CooperativeSearch {
+	
+	private final int nuOfWorkers;
+	
+	private final int exchangeInterval;
+	
+	private final ElitePool elitePool;
+	
+	/**
+	 * @param nuOfWorkers number of workers (and threads)
+	 * @param exchangeInterval iterations between exchanges with the elite pool
+	 * @param eliteSize size of the elite pool
+	 */
+	public CooperativeSearch(int nuOfWorkers, int exchangeInterval, int eliteSize) {
+		super();
+		if(nuOfWorkers < 1) throw new IllegalArgumentException("nuOfWorkers must be at least 1");
+		if(exchangeInterval < 1) throw new IllegalArgumentException("exchangeInterval must be at least 1");
+		this.nuOfWorkers = nuOfWorkers;
+		this.exchangeInterval = exchangeInterval;
+		this.elitePool = new ElitePool(eliteSize);
+	}
+	
+	public ElitePool getElitePool() {
+		return elitePool;
+	}
+	
+	/**
+	 * Runs nuOfIterations iterations on each worker and blocks until all workers are done.
+	 * 
+	 * @param nuOfIterations
+	 * @param algorithmFactory
+	 * @return best solution of all workers
+	 * @throws InterruptedException
+	 * @throws ExecutionException if a worker throws an exception. The remaining workers are cancelled then.
+	 */
+	public VehicleRoutingProblemSolution search(final int nuOfIterations, final MultiStartSearch.AlgorithmFactory algorithmFactory) throws InterruptedException, ExecutionException {
+		ExecutorService executor = Executors.newFixedThreadPool(nuOfWorkers);
+		List<Future<Object>> futures = new ArrayList<Future<Object>>(nuOfWorkers);
+		try{
+			for(int worker=0;worker<nuOfWorkers;worker++){
+				final int currentWorker = worker;
+				futures.add(executor.submit(new Callable<Object>() {
+					
+					@Override
+					public Object call() throws Exception {
+						search(currentWorker, nuOfIterations, algorithmFactory);
+						return null;
+					}
+					
+				}));
+			}
+			for(Future<Object> future : futures) future.get();
+			return elitePool.getBest();
+		}
+		finally{
+			for(Future<Object> future : futures) future.cancel(true);
+			executor.shutdownNow();
+		}
+	}
+	
+	private void search(int worker, int nuOfIterations, MultiStartSearch.AlgorithmFactory algorithmFactory) throws Exception {
+		Random random = new Random(worker);
+		VehicleRoutingProblemSolution current = null;
+		for(int iterations=0;iterations<nuOfIterations;iterations+=exchangeInterval){
+			if(Thread.currentThread().isInterrupted()) throw new InterruptedException();
+			VehicleRoutingAlgorithm algorithm = algorithmFactory.createAlgorithm(worker);
+			algorithm.setNuOfIterations(Math.min(exchangeInterval, nuOfIterations - iterations));
+			if(current != null) algorithm.addInitialSolution(current);
+			VehicleRoutingProblemSolution best = Solutions.bestOf(algorithm.searchSolutions());
+			elitePool.offer(best);
+			VehicleRoutingProblemSolution elite = elitePool.get(random.nextInt(elitePool.size()));
+			current = elite.getCost() < best.getCost() ? elite : best;
+		}
+	}
+	
+	/**
+	 * Compares isolated multi-starts with cooperative search on abrahamProblem.xml and algorithmConfig.xml (same number of threads and 
+	 * iterations per thread), i.e. args are [nuOfThreads] [exchangeInterval].
+	 * 
+	 * @param args
+	 * @throws IOException
+	 * @throws InterruptedException
+	 * @throws ExecutionException
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+		int nuOfThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		int exchangeInterval = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		final int nuOfIterations = 2000;
+		final String algorithmConfig = "input/abe/algorithmConfig.xml";
+		
+		VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+		new VrpXMLReader(vrpBuilder).read("input/abe/abrahamProblem.xml");
+		VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(true);
+		new MatrixReader(matrixBuilder).read("input/abe/Matrix.txt");
+		vrpBuilder.setRoutingCost(matrixBuilder.build());
+		final VehicleRoutingProblem problem = vrpBuilder.build();
+		
+		MultiStartSearch.AlgorithmFactory algorithmFactory = new MultiStartSearch.AlgorithmFactory() {
+			
+			@Override
+			public VehicleRoutingAlgorithm createAlgorithm(int start) {
+				VehicleRoutingAlgorithm algorithm = VehicleRoutingAlgorithms.readAndCreateAlgorithm(problem, algorithmConfig);
+				algorithm.setNuOfIterations(nuOfIterations);
+				return algorithm;
+			}
+			
+		};
+		
+		long startTime = System.currentTimeMillis();
+		VehicleRoutingProblemSolution multiStartBest = new MultiStartSearch(nuOfThreads).search(nuOfThreads, algorithmFactory);
+		System.out.println("multi-start: costs=" + multiStartBest.getCost() + " time=" + (System.currentTimeMillis() - startTime) / 1000. + "s");
+		
+		startTime = System.currentTimeMillis();
+		VehicleRoutingProblemSolution cooperativeBest = new CooperativeSearch(nuOfThreads, exchangeInterval, nuOfThreads).search(nuOfIterations, algorithmFactory);
+		System.out.println("cooperative: costs=" + cooperativeBest.getCost() + " time=" + (System.currentTimeMillis() - startTime) / 1000. + "s");
+	}
+
+}
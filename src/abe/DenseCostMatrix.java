@@ -0,0 +1,266 @@
+package abe;
+
+import java.util.Arrays;
+
+/**
+ * Distance and time matrix backed by primitive double arrays, and addressed by the indices of a {@link LocationIndex}.
+ * 
+ * <p>If the matrix is symmetric, only the lower triangle (incl. the diagonal) is stored row by row, i.e. the cell of (from,to) 
+ * with from >= to is at from*(from+1)/2+to. Otherwise the full matrix is stored row by row. Thus a lookup is a single array read 
+ * and does not allocate anything.
+ * 
+ * <p>Relations that have never been put are NaN, the diagonal is 0.0.
+ * 
+ * <p>Since the arrays are Java arrays, the number of locations is limited to {@link #getMaxNuOfLocations(boolean)}, i.e. 65535 if symmetric
+ * and 46340 otherwise.
+ * 
+ * @author schroeder
+ *
+ */
+public class DenseCostMatrix {
+	
+	private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+	
+	/**
+	 * Returns the number of cells (i.e. the length of the internal arrays) of a matrix with nuOfLocations locations.
+	 * 
+	 * @param nuOfLocations
+	 * @param symmetric
+	 * @return number of cells
+	 */
+	static long getNuOfCells(int nuOfLocations, boolean symmetric){
+		long n = nuOfLocations;
+		if(symmetric) return n*(n+1)/2;
+		return n*n;
+	}
+	
+	/**
+	 * Returns the maximum number of locations a matrix can hold.
+	 * 
+	 * @param symmetric
+	 * @return max number of locations
+	 */
+	public static int getMaxNuOfLocations(boolean symmetric){
+		if(symmetric) return (int)((Math.sqrt(8.*MAX_ARRAY_LENGTH+1)-1)/2);
+		return (int)Math.sqrt(MAX_ARRAY_LENGTH);
+	}
+	
+	/**
+	 * Throws an IllegalArgumentException if a matrix cannot hold nuOfLocations locations.
+	 * 
+	 * @param nuOfLocations
+	 * @param symmetric
+	 */
+	static void checkNuOfLocations(long nuOfLocations, boolean symmetric){
+		if(nuOfLocations < 0 || nuOfLocations > getMaxNuOfLocations(symmetric)){
+			throw new IllegalArgumentException("matrix cannot hold " + nuOfLocations + " locations, a " + (symmetric ? "symmetric" : "asymmetric") 
+					+ " matrix can hold at most " + getMaxNuOfLocations(symmetric) + " locations");
+		}
+	}
+	
+	private final LocationIndex locationIndex;
+	
+	private final boolean symmetric;
+	
+	private int capacity = 0;
+	
+	private double[] distances = new double[0];
+	
+	private double[] times = new double[0];
+	
+	public DenseCostMatrix(boolean symmetric) {
+		this(new LocationIndex(), symmetric);
+	}
+	
+	public DenseCostMatrix(LocationIndex locationIndex, boolean symmetric) {
+		super();
+		this.locationIndex = locationIndex;
+		this.symmetric = symmetric;
+	}
+
+	public LocationIndex getLocationIndex() {
+		return locationIndex;
+	}
+
+	public boolean isSymmetric() {
+		return symmetric;
+	}
+	
+	public int getNuOfLocations(){
+		return locationIndex.size();
+	}
+
+	/**
+	 * Adds distance and time of relation fromId to toId. Unknown location ids are interned.
+	 * 
+	 * @param fromId
+	 * @param toId
+	 * @param distance
+	 * @param time
+	 */
+	public void put(String fromId, String toId, double distance, double time){
+		int from = locationIndex.intern(fromId);
+		int to = locationIndex.intern(toId);
+		put(from, to, distance, time);
+	}
+	
+	public void put(int from, int to, double distance, double time){
+		ensureCapacity(Math.max(from, to)+1);
+		int cell = cell(from,to);
+		distances[cell] = distance;
+		times[cell] = time;
+	}
+	
+	public double getDistance(String fromId, String toId){
+		if(fromId.equals(toId)) return 0.0;
+		return getDistance(index(fromId), index(toId));
+	}
+	
+	public double getTransportTime(String fromId, String toId){
+		if(fromId.equals(toId)) return 0.0;
+		return getTransportTime(index(fromId), index(toId));
+	}
+	
+	public boolean hasRelation(int from, int to){
+		double distance = distances[cell(from,to)];
+		return distance == distance;
+	}
+	
+	public double getDistance(int from, int to){
+		double distance = distances[cell(from,to)];
+		if(distance != distance) throw new IllegalStateException("relation " + locationIndex.getLocationId(from) + "_" + locationIndex.getLocationId(to) + " does not exists");
+		return distance;
+	}
+	
+	public double getTransportTime(int from, int to){
+		double time = times[cell(from,to)];
+		if(time != time) throw new IllegalStateException("relation " + locationIndex.getLocationId(from) + "_" + locationIndex.getLocationId(to) + " does not exists");
+		return time;
+	}
+	
+	/**
+	 * Fills result with distance and time of relation from -> to, i.e. both are read from the same cell. The cost of result is the 
+	 * distance.
+	 * 
+	 * @param from
+	 * @param to
+	 * @param result
+	 * @return result
+	 */
+	public RelationCosts getRelation(int from, int to, RelationCosts result){
+		int cell = cell(from,to);
+		double distance = distances[cell];
+		if(distance != distance) throw new IllegalStateException("relation " + locationIndex.getLocationId(from) + "_" + locationIndex.getLocationId(to) + " does not exists");
+		result.set(distance, times[cell], distance);
+		return result;
+	}
+	
+	/**
+	 * Returns the cell of relation from -> to, i.e. the index of distance and time in the internal arrays.
+	 * 
+	 * @param from
+	 * @param to
+	 * @return cell
+	 */
+	int getCell(int from, int to){
+		return cell(from,to);
+	}
+	
+	double getDistanceOfCell(int cell, int from, int to){
+		double distance = distances[cell];
+		if(distance != distance) throw new IllegalStateException("relation " + locationIndex.getLocationId(from) + "_" + locationIndex.getLocationId(to) + " does not exists");
+		return distance;
+	}
+	
+	double getTransportTimeOfCell(int cell, int from, int to){
+		double time = times[cell];
+		if(time != time) throw new IllegalStateException("relation " + locationIndex.getLocationId(from) + "_" + locationIndex.getLocationId(to) + " does not exists");
+		return time;
+	}
+	
+	/**
+	 * Returns the internal distance array in its storage layout (see class description). Do not modify it.
+	 * 
+	 * @return distance array
+	 */
+	double[] getDistances(){
+		return distances;
+	}
+	
+	/**
+	 * Returns the internal time array in its storage layout (see class description). Do not modify it.
+	 * 
+	 * @return time array
+	 */
+	double[] getTimes(){
+		return times;
+	}
+	
+	/**
+	 * Replaces the internal arrays. They need to be in the storage layout of this matrix for {@link #getNuOfLocations()} locations.
+	 * 
+	 * @param distances
+	 * @param times
+	 */
+	void setArrays(double[] distances, double[] times){
+		int n = locationIndex.size();
+		checkNuOfLocations(n, symmetric);
+		long length = getNuOfCells(n, symmetric);
+		if(distances.length != length || times.length != length) throw new IllegalArgumentException("arrays must have length " + length + " for " + n + " locations");
+		this.distances = distances;
+		this.times = times;
+		this.capacity = n;
+	}
+	
+	private int index(String locationId){
+		int index = locationIndex.getIndex(locationId);
+		if(index < 0) throw new IllegalStateException("location " + locationId + " does not exists");
+		return index;
+	}
+
+	private int cell(int from, int to){
+		if(symmetric){
+			//from*(from+1) overflows int above 46340 locations, the cell itself fits since the array length does
+			if(from < to) return (int)((long)to*(to+1)/2)+from;
+			return (int)((long)from*(from+1)/2)+to;
+		}
+		return from*capacity+to;
+	}
+
+	private void ensureCapacity(int nuOfLocations){
+		if(nuOfLocations <= capacity) return;
+		checkNuOfLocations(nuOfLocations, symmetric);
+		int newCapacity = Math.min(Math.max(nuOfLocations, capacity*2), getMaxNuOfLocations(symmetric));
+		if(symmetric){
+			//rows are appended, thus existing cells keep their position
+			int oldLength = distances.length;
+			int newLength = (int)getNuOfCells(newCapacity, true);
+			distances = Arrays.copyOf(distances, newLength);
+			times = Arrays.copyOf(times, newLength);
+			Arrays.fill(distances, oldLength, newLength, Double.NaN);
+			Arrays.fill(times, oldLength, newLength, Double.NaN);
+			for(int i=capacity;i<newCapacity;i++){
+				distances[cell(i,i)] = 0.;
+				times[cell(i,i)] = 0.;
+			}
+		}
+		else{
+			double[] newDistances = new double[newCapacity*newCapacity];
+			double[] newTimes = new double[newCapacity*newCapacity];
+			Arrays.fill(newDistances, Double.NaN);
+			Arrays.fill(newTimes, Double.NaN);
+			for(int i=0;i<capacity;i++){
+				System.arraycopy(distances, i*capacity, newDistances, i*newCapacity, capacity);
+				System.arraycopy(times, i*capacity, newTimes, i*newCapacity, capacity);
+			}
+			for(int i=capacity;i<newCapacity;i++){
+				newDistances[i*newCapacity+i] = 0.;
+				newTimes[i*newCapacity+i] = 0.;
+			}
+			distances = newDistances;
+			times = newTimes;
+		}
+		capacity = newCapacity;
+	}
+
+}
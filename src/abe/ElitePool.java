@@ -0,0 +1,91 @@
+package abe;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+
+/**
+ * Bounded pool of the best solutions found by concurrent searches. It is lock-free, i.e. a solution replaces the worst elite 
+ * with compare-and-set, and offering retries if another thread has changed the pool in between.
+ * 
+ * <p>Solutions are deep-copied on the way in and on the way out. Thus elites are never modified, and searches never share 
+ * routes or activities (and thus neither states that are memorized per route or activity).
+ * 
+ * @author schroeder
+ * 
+ */
+public class ElitePool {
+	
+	private final AtomicReferenceArray<VehicleRoutingProblemSolution> elites;
+	
+	public ElitePool(int size) {
+		super();
+		if(size < 1) throw new IllegalArgumentException("size must be at least 1");
+		this.elites = new AtomicReferenceArray<VehicleRoutingProblemSolution>(size);
+	}
+	
+	public int size(){
+		return elites.length();
+	}
+	
+	/**
+	 * Offers a copy of solution to the pool. It replaces the worst elite if it is better, solutions with the same costs as an 
+	 * elite are considered to be duplicates and rejected.
+	 * 
+	 * @param solution
+	 * @return true if solution has become an elite
+	 */
+	public boolean offer(VehicleRoutingProblemSolution solution){
+		VehicleRoutingProblemSolution copy = null;
+		while(true){
+			int worstIndex = -1;
+			VehicleRoutingProblemSolution worst = null;
+			for(int i=0;i<elites.length();i++){
+				VehicleRoutingProblemSolution elite = elites.get(i);
+				if(elite == null){
+					if(worstIndex < 0 || worst != null){
+						worstIndex = i;
+						worst = null;
+					}
+					continue;
+				}
+				if(elite.getCost() == solution.getCost()) return false;
+				if(worstIndex < 0 || (worst != null && elite.getCost() > worst.getCost())){
+					worstIndex = i;
+					worst = elite;
+				}
+			}
+			if(worst != null && solution.getCost() >= worst.getCost()) return false;
+			if(copy == null) copy = VehicleRoutingProblemSolution.copyOf(solution);
+			if(elites.compareAndSet(worstIndex, worst, copy)) return true;
+		}
+	}
+	
+	/**
+	 * Returns a copy of the elite at index (if there is none, the copy of the best elite).
+	 * 
+	 * @param index
+	 * @return copy of elite or null if pool is empty
+	 */
+	public VehicleRoutingProblemSolution get(int index){
+		VehicleRoutingProblemSolution elite = elites.get(index);
+		if(elite == null) return getBest();
+		return VehicleRoutingProblemSolution.copyOf(elite);
+	}
+	
+	/**
+	 * Returns a copy of the best elite.
+	 * 
+	 * @return copy of best elite or null if pool is empty
+	 */
+	public VehicleRoutingProblemSolution getBest(){
+		VehicleRoutingProblemSolution best = null;
+		for(int i=0;i<elites.length();i++){
+			VehicleRoutingProblemSolution elite = elites.get(i);
+			if(elite != null && (best == null || elite.getCost() < best.getCost())) best = elite;
+		}
+		if(best == null) return null;
+		return VehicleRoutingProblemSolution.copyOf(best);
+	}
+
+}
@@ -0,0 +1,300 @@
+package abe;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import jsprit.core.problem.VehicleRoutingProblem;
+import jsprit.core.problem.VehicleRoutingProblem.FleetSize;
+import jsprit.core.problem.io.VrpXMLWriter;
+import jsprit.core.problem.job.Service;
+import jsprit.core.problem.solution.route.activity.TimeWindow;
+import jsprit.core.problem.vehicle.VehicleImpl;
+import jsprit.core.problem.vehicle.VehicleTypeImpl;
+import jsprit.core.util.Coordinate;
+
+/**
+ * Generates synthetic instances to test how things scale, i.e. a VRP xml-file and a matching matrix file in the format of 
+ * {@link MatrixReader} (Vehicle;Service;Distance;Time). 
+ * 
+ * <p>Locations are on a square of size x size. A share of services (clusteredShare) is normally distributed around cluster centers, 
+ * the others are uniformly distributed. Time windows are placed such that they can be reached from the nearest depot, and their 
+ * width is (1-timeWindowTightness)*horizon, i.e. tightness 0 means that services have no time window. The fleet consists of 
+ * nuOfVehicleTypes types with increasing capacity and costs, and each depot has nuOfVehiclesPerType vehicles of each type.
+ * 
+ * <p>Distances are euclidean and times are distances / velocity. The matrix is symmetric, thus only one direction of each relation 
+ * is written (MatrixReader reads it as symmetric). Note that the matrix grows quadratically, i.e. 10k locations already result in
+ * 50 million lines.
+ * 
+ * <p>Everything is drawn from a single random number generator with the given seed, thus the same parameters always generate the 
+ * same instance.
+ * 
+ * @author schroeder
+ * 
+ */
+public class InstanceGenerator {
+	
+	public static class Builder {
+		
+		public static Builder newInstance(int nuOfServices){
+			return new Builder(nuOfServices);
+		}
+		
+		private final int nuOfServices;
+		
+		private long seed = 4711L;
+		
+		private double size = 1000.;
+		
+		private double horizon = 10000.;
+		
+		private double velocity = 1.;
+		
+		private int nuOfClusters = 10;
+		
+		private double clusteredShare = 0.5;
+		
+		private double clusterRadius = 50.;
+		
+		private double timeWindowTightness = 0.;
+		
+		private double serviceTime = 10.;
+		
+		private int maxDemand = 10;
+		
+		private int nuOfDepots = 1;
+		
+		private int nuOfVehicleTypes = 1;
+		
+		private int nuOfVehiclesPerType = 10;
+		
+		private int baseCapacity = 100;
+		
+		private Builder(int nuOfServices){
+			this.nuOfServices = nuOfServices;
+		}
+		
+		public Builder setSeed(long seed){
+			this.seed = seed;
+			return this;
+		}
+		
+		public Builder setSize(double size){
+			this.size = size;
+			return this;
+		}
+		
+		public Builder setHorizon(double horizon){
+			this.horizon = horizon;
+			return this;
+		}
+		
+		public Builder setVelocity(double velocity){
+			this.velocity = velocity;
+			return this;
+		}
+		
+		/**
+		 * Sets clustering, i.e. clusteredShare of all services are normally distributed (with standard deviation clusterRadius) 
+		 * around nuOfClusters cluster centers. Default is 10 clusters with a radius of 50 and a clustered share of 0.5.
+		 * 
+		 * @param nuOfClusters
+		 * @param clusteredShare
+		 * @param clusterRadius
+		 * @return builder
+		 */
+		public Builder setClustering(int nuOfClusters, double clusteredShare, double clusterRadius){
+			this.nuOfClusters = nuOfClusters;
+			this.clusteredShare = clusteredShare;
+			this.clusterRadius = clusterRadius;
+			return this;
+		}
+		
+		/**
+		 * Sets tightness of time windows in [0,1]. Default is 0, i.e. no time windows.
+		 * 
+		 * @param timeWindowTightness
+		 * @return builder
+		 */
+		public Builder setTimeWindowTightness(double timeWindowTightness){
+			if(timeWindowTightness < 0. || timeWindowTightness > 1.) throw new IllegalArgumentException("time window tightness must be in [0,1]");
+			this.timeWindowTightness = timeWindowTightness;
+			return this;
+		}
+		
+		public Builder setServiceTime(double serviceTime){
+			this.serviceTime = serviceTime;
+			return this;
+		}
+		
+		public Builder setMaxDemand(int maxDemand){
+			this.maxDemand = maxDemand;
+			return this;
+		}
+		
+		public Builder setNuOfDepots(int nuOfDepots){
+			this.nuOfDepots = nuOfDepots;
+			return this;
+		}
+		
+		/**
+		 * Sets fleet heterogeneity, i.e. type k (k=0..nuOfVehicleTypes-1) has capacity baseCapacity*(k+1), a fixed cost of 100*(k+1) 
+		 * and costs per distance of 1+0.2*k.
+		 * 
+		 * @param nuOfVehicleTypes
+		 * @param nuOfVehiclesPerType vehicles per type and depot
+		 * @param baseCapacity
+		 * @return builder
+		 */
+		public Builder setFleet(int nuOfVehicleTypes, int nuOfVehiclesPerType, int baseCapacity){
+			this.nuOfVehicleTypes = nuOfVehicleTypes;
+			this.nuOfVehiclesPerType = nuOfVehiclesPerType;
+			this.baseCapacity = baseCapacity;
+			return this;
+		}
+		
+		public InstanceGenerator build(){
+			return new InstanceGenerator(this);
+		}
+		
+	}
+	
+	/**
+	 * Generates an instance with args[0] services (default 1000) into output/generated/ (or args[1]). The matrix is only written
+	 * for up to 5000 services.
+	 * 
+	 * @param args
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		int nuOfServices = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		String outputDir = args.length > 1 ? args[1] : "output/generated";
+		new File(outputDir).mkdirs();
+		InstanceGenerator generator = Builder.newInstance(nuOfServices).setNuOfDepots(4).setFleet(3, nuOfServices / 100 + 1, 100)
+				.setTimeWindowTightness(0.8).build();
+		generator.writeProblem(outputDir + "/vrp_" + nuOfServices + ".xml");
+		if(nuOfServices <= 5000) generator.writeMatrix(outputDir + "/matrix_" + nuOfServices + ".txt");
+	}
+	
+	private final Builder builder;
+	
+	private final List<String> locationIds = new ArrayList<String>();
+	
+	private final List<Coordinate> coordinates = new ArrayList<Coordinate>();
+	
+	private final VehicleRoutingProblem problem;
+	
+	private InstanceGenerator(Builder builder){
+		this.builder = builder;
+		Random random = new Random(builder.seed);
+		VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+		
+		List<Coordinate> depots = new ArrayList<Coordinate>();
+		for(int d=0;d<builder.nuOfDepots;d++){
+			Coordinate depot = Coordinate.newInstance(builder.size*(0.25 + 0.5*random.nextDouble()), builder.size*(0.25 + 0.5*random.nextDouble()));
+			depots.add(depot);
+			addLocation("depot_" + (d+1), depot);
+		}
+		for(int k=0;k<builder.nuOfVehicleTypes;k++){
+			VehicleTypeImpl type = VehicleTypeImpl.Builder.newInstance("type_" + (k+1)).addCapacityDimension(0, builder.baseCapacity*(k+1))
+					.setFixedCost(100.*(k+1)).setCostPerDistance(1. + 0.2*k).build();
+			for(int d=0;d<depots.size();d++){
+				for(int v=0;v<builder.nuOfVehiclesPerType;v++){
+					vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance((d+1) + "_" + (k+1) + "_" + (v+1) + "_vehicle").setType(type)
+							.setStartLocationId("depot_" + (d+1)).setStartLocationCoordinate(depots.get(d)).setLatestArrival(builder.horizon).build());
+				}
+			}
+		}
+		
+		List<Coordinate> clusterCenters = new ArrayList<Coordinate>();
+		for(int c=0;c<builder.nuOfClusters;c++){
+			clusterCenters.add(Coordinate.newInstance(builder.size*random.nextDouble(), builder.size*random.nextDouble()));
+		}
+		double timeWindowWidth = (1. - builder.timeWindowTightness)*builder.horizon;
+		for(int i=0;i<builder.nuOfServices;i++){
+			Coordinate coord;
+			if(!clusterCenters.isEmpty() && random.nextDouble() < builder.clusteredShare){
+				Coordinate center = clusterCenters.get(random.nextInt(clusterCenters.size()));
+				coord = Coordinate.newInstance(clamp(center.getX() + builder.clusterRadius*random.nextGaussian()), clamp(center.getY() + builder.clusterRadius*random.nextGaussian()));
+			}
+			else coord = Coordinate.newInstance(builder.size*random.nextDouble(), builder.size*random.nextDouble());
+			String id = "" + (i+1);
+			addLocation(id, coord);
+			
+			double travelTime = getDistance(coord, nearest(depots, coord)) / builder.velocity;
+			double earliest = travelTime;
+			double latest = builder.horizon - travelTime - builder.serviceTime;
+			TimeWindow timeWindow;
+			if(builder.timeWindowTightness == 0. || latest - earliest <= timeWindowWidth){
+				timeWindow = TimeWindow.newInstance(0., builder.horizon);
+			}
+			else{
+				double start = earliest + (latest - earliest - timeWindowWidth)*random.nextDouble();
+				timeWindow = TimeWindow.newInstance(start, start + timeWindowWidth);
+			}
+			int demand = 1 + random.nextInt(builder.maxDemand);
+			vrpBuilder.addJob(Service.Builder.newInstance(id).addSizeDimension(0, demand).setLocationId(id).setCoord(coord)
+					.setServiceTime(builder.serviceTime).setTimeWindow(timeWindow).build());
+		}
+		vrpBuilder.setFleetSize(FleetSize.FINITE);
+		problem = vrpBuilder.build();
+	}
+	
+	public VehicleRoutingProblem getProblem() {
+		return problem;
+	}
+	
+	public void writeProblem(String filename){
+		new VrpXMLWriter(problem).write(filename);
+	}
+	
+	/**
+	 * Writes all relations (one direction each) in the format of {@link MatrixReader}.
+	 * 
+	 * @param filename
+	 * @throws IOException
+	 */
+	public void writeMatrix(String filename) throws IOException{
+		BufferedWriter writer = new BufferedWriter(new FileWriter(new File(filename)));
+		try{
+			writer.write("Vehicle;Service;Distance;Time\n");
+			for(int from=0;from<locationIds.size();from++){
+				for(int to=0;to<from;to++){
+					double distance = getDistance(coordinates.get(from), coordinates.get(to));
+					writer.write(locationIds.get(from) + ";" + locationIds.get(to) + ";" + distance + ";" + (distance / builder.velocity) + "\n");
+				}
+			}
+		}
+		finally{
+			writer.close();
+		}
+	}
+	
+	private void addLocation(String id, Coordinate coord){
+		locationIds.add(id);
+		coordinates.add(coord);
+	}
+	
+	private double clamp(double value){
+		return Math.max(0., Math.min(builder.size, value));
+	}
+	
+	private static Coordinate nearest(List<Coordinate> coords, Coordinate coord){
+		Coordinate nearest = coords.get(0);
+		for(Coordinate c : coords){
+			if(getDistance(c, coord) < getDistance(nearest, coord)) nearest = c;
+		}
+		return nearest;
+	}
+	
+	private static double getDistance(Coordinate from, Coordinate to){
+		double dx = from.getX() - to.getX();
+		double dy = from.getY() - to.getY();
+		return Math.sqrt(dx*dx + dy*dy);
+	}
+
+}
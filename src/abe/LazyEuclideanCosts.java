@@ -0,0 +1,189 @@
+package abe;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import jsprit.core.problem.cost.AbstractForwardVehicleRoutingTransportCosts;
+import jsprit.core.problem.driver.Driver;
+import jsprit.core.problem.vehicle.Vehicle;
+import jsprit.core.problem.vehicle.VehicleTypeImpl.VehicleCostParams;
+import jsprit.core.util.Coordinate;
+
+/**
+ * Euclidean transport costs that are computed on demand, i.e. instead of an all-pairs matrix only the coordinates are stored. 
+ * 
+ * <p>Distances are computed tile by tile (a tile is a block of TILE_SIZE x TILE_SIZE relations) when a relation of the tile is first 
+ * accessed, and cached in a bounded, direct-mapped tile cache. If a tile is evicted, it is just recomputed the next time. Thus memory is
+ * proportional to the cache capacity and not to the square of the number of locations.
+ * 
+ * <p>Relations can be sped up, i.e. transportTime = distance * (1 - percentSpeedup) for a share of probSpeedupRelation of all relations. 
+ * Whether a relation is sped up is determined by a hash of its location ids and the seed (and not by a shared random number generator), 
+ * thus it does not depend on the order relations are accessed and the same seed always yields the same costs.
+ * 
+ * <p>Tiles are immutable and published via an atomic array, thus costs can be shared among threads.
+ * 
+ * @author schroeder
+ * 
+ */
+public class LazyEuclideanCosts extends AbstractForwardVehicleRoutingTransportCosts {
+	
+	private static final int TILE_SHIFT = 6;
+	
+	private static final int TILE_SIZE = 1 << TILE_SHIFT;
+	
+	private static final int TILE_MASK = TILE_SIZE - 1;
+	
+	private static class Tile {
+		
+		final long key;
+		
+		final double[] distances = new double[TILE_SIZE*TILE_SIZE];
+		
+		Tile(long key) {
+			super();
+			this.key = key;
+		}
+		
+	}
+	
+	private final LocationIndex locationIndex;
+	
+	private final double[] xs;
+	
+	private final double[] ys;
+	
+	private final long[] locationHashes;
+	
+	private final double probSpeedupRelation;
+	
+	private final double percentSpeedup;
+	
+	private final AtomicReferenceArray<Tile> tiles;
+	
+	private final int tileMask;
+	
+	/**
+	 * Constructs costs without speedup and a cache of 256 tiles.
+	 * 
+	 * @param locations
+	 */
+	public LazyEuclideanCosts(Map<String,Coordinate> locations) {
+		this(locations, 0., 0., 0L, 256);
+	}
+	
+	/**
+	 * @param locations coordinates by location id
+	 * @param probSpeedupRelation share of relations that are sped up
+	 * @param percentSpeedup time reduction of sped up relations
+	 * @param seed seed of the relation hash
+	 * @param maxTiles max. number of cached tiles (rounded up to a power of two), a tile takes TILE_SIZE*TILE_SIZE doubles
+	 */
+	public LazyEuclideanCosts(Map<String,Coordinate> locations, double probSpeedupRelation, double percentSpeedup, long seed, int maxTiles) {
+		super();
+		this.locationIndex = new LocationIndex();
+		int n = locations.size();
+		xs = new double[n];
+		ys = new double[n];
+		locationHashes = new long[n];
+		for(Map.Entry<String,Coordinate> e : locations.entrySet()){
+			int index = locationIndex.intern(e.getKey());
+			xs[index] = e.getValue().getX();
+			ys[index] = e.getValue().getY();
+			locationHashes[index] = mix(e.getKey().hashCode() ^ seed);
+		}
+		this.probSpeedupRelation = probSpeedupRelation;
+		this.percentSpeedup = percentSpeedup;
+		int capacity = 1;
+		while(capacity < maxTiles) capacity <<= 1;
+		tiles = new AtomicReferenceArray<Tile>(capacity);
+		tileMask = capacity - 1;
+	}
+	
+	public LocationIndex getLocationIndex() {
+		return locationIndex;
+	}
+	
+	public double getDistance(String fromId, String toId){
+		return getDistance(getIndex(fromId), getIndex(toId));
+	}
+	
+	public double getDistance(int from, int to){
+		long key = ((long) (from >>> TILE_SHIFT) << 32) | (to >>> TILE_SHIFT);
+		int slot = (int) (mix(key) >>> 32) & tileMask;
+		Tile tile = tiles.get(slot);
+		if(tile == null || tile.key != key){
+			tile = createTile(key, from >>> TILE_SHIFT, to >>> TILE_SHIFT);
+			tiles.set(slot, tile);
+		}
+		return tile.distances[((from & TILE_MASK) << TILE_SHIFT) | (to & TILE_MASK)];
+	}
+	
+	public double getTransportTime(int from, int to){
+		double distance = getDistance(from, to);
+		if(isSpeedupRelation(from, to)) return distance - distance*percentSpeedup;
+		return distance;
+	}
+	
+	/**
+	 * Returns true if relation from -> to is sped up. This only depends on the location ids and the seed.
+	 * 
+	 * @param from
+	 * @param to
+	 * @return true if relation is sped up
+	 */
+	public boolean isSpeedupRelation(int from, int to){
+		if(probSpeedupRelation <= 0.) return false;
+		long h = mix(locationHashes[from] * 0x9E3779B97F4A7C15L + locationHashes[to]);
+		return (h >>> 11) * 0x1.0p-53 < probSpeedupRelation;
+	}
+	
+	@Override
+	public double getTransportTime(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+		return getTransportTime(getIndex(fromId), getIndex(toId));
+	}
+	
+	@Override
+	public double getTransportCost(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+		int from = getIndex(fromId);
+		int to = getIndex(toId);
+		double distance = getDistance(from, to);
+		if(vehicle == null) return distance;
+		VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+		if(costParams.perTimeUnit == 0.) return costParams.perDistanceUnit*distance;
+		double time = isSpeedupRelation(from, to) ? distance - distance*percentSpeedup : distance;
+		return costParams.perDistanceUnit*distance + costParams.perTimeUnit*time;
+	}
+	
+	private Tile createTile(long key, int fromTile, int toTile){
+		Tile tile = new Tile(key);
+		int fromStart = fromTile << TILE_SHIFT;
+		int toStart = toTile << TILE_SHIFT;
+		int fromEnd = Math.min(fromStart + TILE_SIZE, xs.length);
+		int toEnd = Math.min(toStart + TILE_SIZE, xs.length);
+		for(int from=fromStart;from<fromEnd;from++){
+			int row = (from & TILE_MASK) << TILE_SHIFT;
+			for(int to=toStart;to<toEnd;to++){
+				double dx = xs[from] - xs[to];
+				double dy = ys[from] - ys[to];
+				tile.distances[row | (to & TILE_MASK)] = Math.sqrt(dx*dx + dy*dy);
+			}
+		}
+		return tile;
+	}
+	
+	private int getIndex(String locationId){
+		int index = locationIndex.getIndex(locationId);
+		if(index < 0) throw new IllegalStateException("location " + locationId + " does not exist");
+		return index;
+	}
+	
+	private static long mix(long h){
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb93e45d98e53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+}
@@ -0,0 +1,59 @@
+package abe;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns location ids to dense int indices [0..size()-1], in order of first appearance.
+ * 
+ * <p>Once the ids are interned, cost lookups can be done with plain array indexing instead of
+ * string concatenation and map lookups.
+ * 
+ * @author schroeder
+ *
+ */
+public class LocationIndex {
+	
+	private Map<String,Integer> indices = new HashMap<String,Integer>();
+	
+	private List<String> ids = new ArrayList<String>();
+	
+	/**
+	 * Returns the index of the specified location id, and assigns the next free index if the id is not known yet.
+	 * 
+	 * @param locationId
+	 * @return index of locationId
+	 */
+	public int intern(String locationId){
+		Integer index = indices.get(locationId);
+		if(index == null){
+			index = ids.size();
+			indices.put(locationId, index);
+			ids.add(locationId);
+		}
+		return index;
+	}
+	
+	/**
+	 * Returns the index of the specified location id, or -1 if the id is unknown.
+	 * 
+	 * @param locationId
+	 * @return index of locationId or -1
+	 */
+	public int getIndex(String locationId){
+		Integer index = indices.get(locationId);
+		if(index == null) return -1;
+		return index;
+	}
+	
+	public String getLocationId(int index){
+		return ids.get(index);
+	}
+	
+	public int size(){
+		return ids.size();
+	}
+
+}
@@ -0,0 +1,337 @@
+package abe;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+
+/**
+ * Streaming parser for matrix files in the format of input/abe/Matrix.txt, i.e.
+ * 
+ * <pre>
+ * Vehicle;Service;Distance;Time
+ * 0;4;627,925894642352;124,896866825247
+ * </pre>
+ * 
+ * <p>Header lines (with 'Distance' in the distance column) are skipped wherever they occur.
+ * 
+ * <p>The file is memory-mapped in windows and parsed directly from its bytes. Location ids are interned into a {@link LocationIndex}
+ * without creating a String per row (only once per new location), and decimal numbers (with ',' or '.' as separator) are parsed 
+ * without intermediate Strings. Rows are passed to a {@link RowHandler} one by one, thus the dataset is never buffered as a whole.
+ * 
+ * <p>Numbers with more than 15 significant digits might differ from Double.parseDouble in the last bit.
+ * 
+ * @author schroeder
+ *
+ */
+public class MappedMatrixParser {
+	
+	public static interface RowHandler {
+		
+		public void handleRow(int fromIndex, int toIndex, double distance, double time);
+		
+	}
+	
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	
+	private static final byte[] HEADER = "Distance".getBytes(UTF_8);
+	
+	private static final int DEFAULT_WINDOW_SIZE = 1 << 28;
+	
+	private static final double[] POWERS_OF_TEN = new double[23];
+	
+	static {
+		POWERS_OF_TEN[0] = 1.;
+		for(int i=1;i<POWERS_OF_TEN.length;i++) POWERS_OF_TEN[i] = POWERS_OF_TEN[i-1]*10.;
+	}
+	
+	private final LocationIndex locationIndex;
+	
+	private int windowSize = DEFAULT_WINDOW_SIZE;
+	
+	/*
+	 * open addressing table of location indices (stored as index+1, 0 means empty), keyed by the bytes of the location id
+	 */
+	private int[] table = new int[64];
+	
+	/*
+	 * bytes of the interned ids, the id with index i is idBytes[idOffsets[i]..idOffsets[i+1]-1]
+	 */
+	private byte[] idBytes = new byte[256];
+	
+	private int[] idOffsets = new int[]{0};
+	
+	private int nuOfIds = 0;
+	
+	/*
+	 * index in locationIndex of the id with index i
+	 */
+	private int[] locationIndices = new int[16];
+	
+	private long nuOfRows;
+	
+	private long parsingTime;
+	
+	/*
+	 * parser state, i.e. position after the last parsed field and the value of the last parsed number
+	 */
+	private int pos;
+	
+	private double number;
+	
+	private long lineNumber;
+	
+	public MappedMatrixParser(LocationIndex locationIndex) {
+		super();
+		this.locationIndex = locationIndex;
+	}
+	
+	/**
+	 * Sets the size of the mapped windows in bytes. A single line must not be longer than a window.
+	 * 
+	 * @param windowSize
+	 */
+	public void setWindowSize(int windowSize){
+		this.windowSize = windowSize;
+	}
+	
+	/**
+	 * Returns number of rows parsed in the last call of parse.
+	 * 
+	 * @return nuOfRows
+	 */
+	public long getNuOfRows() {
+		return nuOfRows;
+	}
+
+	/**
+	 * Returns time in milliseconds the last call of parse took.
+	 * 
+	 * @return parsingTime
+	 */
+	public long getParsingTime() {
+		return parsingTime;
+	}
+	
+	public double getRowsPerSecond(){
+		if(parsingTime == 0) return nuOfRows*1000.;
+		return nuOfRows*1000./parsingTime;
+	}
+
+	public void parse(String filename, RowHandler rowHandler) throws IOException{
+		long startTime = System.currentTimeMillis();
+		nuOfRows = 0;
+		lineNumber = 0;
+		RandomAccessFile file = new RandomAccessFile(new File(filename), "r");
+		try{
+			FileChannel channel = file.getChannel();
+			long size = channel.size();
+			long windowStart = 0;
+			while(windowStart < size){
+				int length = (int)Math.min(windowSize, size-windowStart);
+				boolean lastWindow = windowStart + length == size;
+				MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, windowStart, length);
+				int parsed = parseWindow(buffer, length, lastWindow, rowHandler);
+				if(parsed == 0) throw new IllegalStateException("line " + (lineNumber+1) + " is longer than window size " + windowSize);
+				windowStart += parsed;
+			}
+		}
+		finally{
+			file.close();
+		}
+		parsingTime = System.currentTimeMillis() - startTime;
+	}
+
+	/*
+	 * parses all complete lines of the window and returns the number of bytes consumed
+	 */
+	private int parseWindow(MappedByteBuffer buffer, int length, boolean lastWindow, RowHandler rowHandler) {
+		int lineStart = 0;
+		while(lineStart < length){
+			int lineEnd = lineStart;
+			while(lineEnd < length && buffer.get(lineEnd) != '\n') lineEnd++;
+			if(lineEnd == length && !lastWindow) return lineStart;
+			lineNumber++;
+			parseLine(buffer, lineStart, lineEnd, rowHandler);
+			lineStart = lineEnd + 1;
+		}
+		return length;
+	}
+
+	private void parseLine(MappedByteBuffer buffer, int start, int end, RowHandler rowHandler) {
+		while(start < end && isWhitespace(buffer.get(start))) start++;
+		while(end > start && isWhitespace(buffer.get(end-1))) end--;
+		if(start == end) return;
+		int nuOfFields = 1;
+		for(int i=start;i<end;i++){
+			if(buffer.get(i) == ';') nuOfFields++;
+		}
+		if(nuOfFields != 4) return;
+		int fromEnd = nextSeparator(buffer, start, end);
+		int toEnd = nextSeparator(buffer, fromEnd+1, end);
+		int distanceEnd = nextSeparator(buffer, toEnd+1, end);
+		if(isHeader(buffer, toEnd+1, distanceEnd)) return;
+		pos = toEnd + 1;
+		if(!parseNumber(buffer, end)) throw new IllegalStateException("cannot parse distance in line " + lineNumber);
+		double distance = number;
+		pos++;
+		if(!parseNumber(buffer, end)) throw new IllegalStateException("cannot parse time in line " + lineNumber);
+		double time = number;
+		int from = intern(buffer, start, fromEnd);
+		int to = intern(buffer, fromEnd+1, toEnd);
+		rowHandler.handleRow(from, to, distance, time);
+		nuOfRows++;
+	}
+
+	private boolean isHeader(MappedByteBuffer buffer, int start, int end) {
+		if(end - start != HEADER.length) return false;
+		for(int i=0;i<HEADER.length;i++){
+			if(buffer.get(start+i) != HEADER[i]) return false;
+		}
+		return true;
+	}
+
+	private int nextSeparator(MappedByteBuffer buffer, int start, int end) {
+		int i = start;
+		while(i < end && buffer.get(i) != ';') i++;
+		return i;
+	}
+
+	/*
+	 * parses [+-]digits[(,|.)digits][(e|E)[+-]digits] starting at pos, sets number and leaves pos at the next separator or end
+	 */
+	private boolean parseNumber(MappedByteBuffer buffer, int end) {
+		int i = pos;
+		while(i < end && buffer.get(i) == ' ') i++;
+		boolean negative = false;
+		if(i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')){
+			negative = buffer.get(i) == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int nuOfDigits = 0;
+		int exponent = 0;
+		boolean fraction = false;
+		boolean digitFound = false;
+		while(i < end){
+			byte b = buffer.get(i);
+			if(b >= '0' && b <= '9'){
+				digitFound = true;
+				if(mantissa == 0 && b == '0'){
+					if(fraction) exponent--;
+				}
+				else if(nuOfDigits < 18){
+					mantissa = mantissa*10 + (b - '0');
+					nuOfDigits++;
+					if(fraction) exponent--;
+				}
+				else if(!fraction){
+					exponent++;
+				}
+			}
+			else if((b == ',' || b == '.') && !fraction){
+				fraction = true;
+			}
+			else break;
+			i++;
+		}
+		if(!digitFound) return false;
+		if(i < end && (buffer.get(i) == 'e' || buffer.get(i) == 'E')){
+			i++;
+			boolean negativeExp = false;
+			if(i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')){
+				negativeExp = buffer.get(i) == '-';
+				i++;
+			}
+			int exp = 0;
+			boolean expDigitFound = false;
+			while(i < end && buffer.get(i) >= '0' && buffer.get(i) <= '9'){
+				exp = exp*10 + (buffer.get(i) - '0');
+				expDigitFound = true;
+				i++;
+			}
+			if(!expDigitFound) return false;
+			exponent += negativeExp ? -exp : exp;
+		}
+		while(i < end && buffer.get(i) == ' ') i++;
+		if(i < end && buffer.get(i) != ';') return false;
+		double value = mantissa;
+		if(exponent < 0){
+			if(-exponent < POWERS_OF_TEN.length) value = value / POWERS_OF_TEN[-exponent];
+			else value = value / Math.pow(10, -exponent);
+		}
+		else if(exponent > 0){
+			if(exponent < POWERS_OF_TEN.length) value = value * POWERS_OF_TEN[exponent];
+			else value = value * Math.pow(10, exponent);
+		}
+		number = negative ? -value : value;
+		pos = i;
+		return true;
+	}
+
+	private int intern(MappedByteBuffer buffer, int start, int end) {
+		while(start < end && buffer.get(start) == ' ') start++;
+		while(end > start && buffer.get(end-1) == ' ') end--;
+		int hash = 0x811c9dc5;
+		for(int i=start;i<end;i++){
+			hash = (hash ^ buffer.get(i)) * 0x01000193;
+		}
+		int mask = table.length - 1;
+		int slot = hash & mask;
+		while(table[slot] != 0){
+			int id = table[slot] - 1;
+			if(equals(buffer, start, end, id)) return locationIndices[id];
+			slot = (slot + 1) & mask;
+		}
+		int id = addId(buffer, start, end);
+		table[slot] = id + 1;
+		if(nuOfIds*2 > table.length) rehash();
+		return locationIndices[id];
+	}
+
+	private boolean equals(MappedByteBuffer buffer, int start, int end, int id) {
+		int offset = idOffsets[id];
+		int length = idOffsets[id+1] - offset;
+		if(length != end - start) return false;
+		for(int i=0;i<length;i++){
+			if(idBytes[offset+i] != buffer.get(start+i)) return false;
+		}
+		return true;
+	}
+
+	private int addId(MappedByteBuffer buffer, int start, int end) {
+		int length = end - start;
+		int offset = idOffsets[nuOfIds];
+		if(offset + length > idBytes.length) idBytes = Arrays.copyOf(idBytes, Math.max(idBytes.length*2, offset+length));
+		for(int i=0;i<length;i++) idBytes[offset+i] = buffer.get(start+i);
+		if(nuOfIds+2 > idOffsets.length) idOffsets = Arrays.copyOf(idOffsets, idOffsets.length*2+2);
+		idOffsets[nuOfIds+1] = offset + length;
+		if(nuOfIds >= locationIndices.length) locationIndices = Arrays.copyOf(locationIndices, locationIndices.length*2);
+		locationIndices[nuOfIds] = locationIndex.intern(new String(idBytes, offset, length, UTF_8));
+		return nuOfIds++;
+	}
+
+	private void rehash() {
+		int[] newTable = new int[table.length*2];
+		int mask = newTable.length - 1;
+		for(int id=0;id<nuOfIds;id++){
+			int hash = 0x811c9dc5;
+			for(int i=idOffsets[id];i<idOffsets[id+1];i++){
+				hash = (hash ^ idBytes[i]) * 0x01000193;
+			}
+			int slot = hash & mask;
+			while(newTable[slot] != 0) slot = (slot + 1) & mask;
+			newTable[slot] = id + 1;
+		}
+		table = newTable;
+	}
+	
+	private static boolean isWhitespace(byte b){
+		return b == ' ' || b == '\r' || b == '\t';
+	}
+
+}
@@ -4,10 +4,6 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.util.Random;
 
 import jsprit.core.util.VehicleRoutingTransportCostsMatrix;
@@ -25,7 +21,7 @@ public class MatrixReader {
 	
 	private VehicleRoutingTransportCostsMatrix.Builder costMatrixBuilder;
 	
-	private Map<String,Double> distances = new HashMap<String,Double>();
+	private DenseCostMatrix costMatrix = new DenseCostMatrix(true);
 	
 	private double probRelation = 0.0;
 	
@@ -33,6 +29,13 @@ public class MatrixReader {
 	
 	private Random random = new Random(Long.MAX_VALUE);
 	
+	/**
+	 * Reads the matrix into {@link #getCostMatrix()} only, i.e. without a VehicleRoutingTransportCostsMatrix.
+	 */
+	public MatrixReader() {
+		super();
+	}
+	
 	public MatrixReader(VehicleRoutingTransportCostsMatrix.Builder costMatrixBuilder) {
 		super();
 		this.costMatrixBuilder = costMatrixBuilder;
@@ -49,20 +52,42 @@ public class MatrixReader {
 		this.random = random;
 	}
 
+	/**
+	 * Returns the distance between from and to. Since the matrix is read as symmetric one, it does not matter
+	 * in which direction the relation is given in the file.
+	 * 
+	 * @param from
+	 * @param to
+	 * @return distance
+	 */
 	public double getDistance(String from, String to){
-		if(from.equals(to)) return 0.0;
-		String key = from+"_"+to;
-		if(!distances.containsKey(key)){
-			key = to+"_"+from;
-		}
-		if(!distances.containsKey(key)) throw new IllegalStateException("key " + key + " does not exists");
-		return distances.get(key);
+		return costMatrix.getDistance(from, to);
+	}
+	
+	/**
+	 * Returns the transport time between from and to (incl. the speedup of the relation, if there is one).
+	 * 
+	 * @param from
+	 * @param to
+	 * @return transport time
+	 */
+	public double getTransportTime(String from, String to){
+		return costMatrix.getTransportTime(from, to);
+	}
+	
+	/**
+	 * Returns the index-based matrix that is filled while reading. Use its {@link LocationIndex} to translate
+	 * location ids to indices once, and look up distances and times by index afterwards.
+	 * 
+	 * @return costMatrix
+	 */
+	public DenseCostMatrix getCostMatrix() {
+		return costMatrix;
 	}
 	
 	public void read(String filename) throws IOException{
 		BufferedReader reader = new BufferedReader(new FileReader(new File(filename)));
 		String line = null;
-		List<String[]> dataset = new ArrayList<String[]>();
 //		List<Double> distances = new ArrayList<Double>();
 //		List<Double> times = new ArrayList<Double>();
 		while((line=reader.readLine())!=null){
@@ -70,21 +95,20 @@ public class MatrixReader {
 			String[] tokens = cleanedLine.split(";");
 			if(tokens.length == 4){
 				if(!cleanedLine.contains("Distance")){
-					dataset.add(tokens);
 					String distance = tokens[2].replace(",", ".");
 					double dist = Double.parseDouble(distance);
 					String time = tokens[3].replace(",", ".");
 					double t = Double.parseDouble(time);
-					costMatrixBuilder.addTransportDistance(tokens[0], tokens[1], dist);
 					double randomNumber = random.nextDouble();
 					boolean speedupRelation = randomNumber < probRelation;
 					if(speedupRelation){
-						costMatrixBuilder.addTransportTime(tokens[0], tokens[1], (t - t*percentSpeedup));
+						t = t - t*percentSpeedup;
 					}
-					else{
+					if(costMatrixBuilder != null){
+						costMatrixBuilder.addTransportDistance(tokens[0], tokens[1], dist);
 						costMatrixBuilder.addTransportTime(tokens[0], tokens[1], t);
 					}
-					distances.put(tokens[0]+"_"+tokens[1], dist);
+					costMatrix.put(tokens[0], tokens[1], dist, t);
 				}
 			}
 		}
@@ -108,5 +132,72 @@ public class MatrixReader {
 //		}
 		reader.close();
 	}
+	
+	/**
+	 * Writes the matrix read so far to a binary snapshot (see {@link MatrixSnapshot}). Note that speedups of relations are 
+	 * already contained in the times of the snapshot.
+	 * 
+	 * @param filename
+	 * @throws IOException
+	 */
+	public void writeSnapshot(String filename) throws IOException{
+		MatrixSnapshot.write(costMatrix, filename);
+	}
+	
+	/**
+	 * Reads a binary snapshot written by {@link #writeSnapshot(String)}, and replaces the matrix of this reader. If this reader has a 
+	 * VehicleRoutingTransportCostsMatrix.Builder, all relations of the snapshot are added to it.
+	 * 
+	 * @param filename
+	 * @throws IOException
+	 */
+	public void readSnapshot(String filename) throws IOException{
+		costMatrix = MatrixSnapshot.read(filename);
+		if(costMatrixBuilder != null){
+			LocationIndex locationIndex = costMatrix.getLocationIndex();
+			for(int from=0;from<locationIndex.size();from++){
+				int nuOfTo = costMatrix.isSymmetric() ? from : locationIndex.size();
+				for(int to=0;to<nuOfTo;to++){
+					if(from == to || !costMatrix.hasRelation(from, to)) continue;
+					costMatrixBuilder.addTransportDistance(locationIndex.getLocationId(from), locationIndex.getLocationId(to), costMatrix.getDistance(from, to));
+					costMatrixBuilder.addTransportTime(locationIndex.getLocationId(from), locationIndex.getLocationId(to), costMatrix.getTransportTime(from, to));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Reads the same format as {@link #read(String)}, but memory-maps the file and parses it row by row directly from its bytes 
+	 * (see {@link MappedMatrixParser}). This is meant for large matrix files.
+	 * 
+	 * <p>If this reader has no VehicleRoutingTransportCostsMatrix.Builder, only {@link #getCostMatrix()} is filled.
+	 * 
+	 * @param filename
+	 * @throws IOException
+	 */
+	public void readMapped(String filename) throws IOException{
+		final LocationIndex locationIndex = costMatrix.getLocationIndex();
+		MappedMatrixParser parser = new MappedMatrixParser(locationIndex);
+		parser.parse(filename, new MappedMatrixParser.RowHandler() {
+			
+			@Override
+			public void handleRow(int fromIndex, int toIndex, double distance, double time) {
+				boolean speedupRelation = random.nextDouble() < probRelation;
+				if(speedupRelation){
+					time = time - time*percentSpeedup;
+				}
+				if(costMatrixBuilder != null){
+					String fromId = locationIndex.getLocationId(fromIndex);
+					String toId = locationIndex.getLocationId(toIndex);
+					costMatrixBuilder.addTransportDistance(fromId, toId, distance);
+					costMatrixBuilder.addTransportTime(fromId, toId, time);
+				}
+				costMatrix.put(fromIndex, toIndex, distance, time);
+			}
+			
+		});
+		System.out.println("read " + parser.getNuOfRows() + " rows from " + filename + " in " + parser.getParsingTime() + " ms (" 
+				+ Math.round(parser.getRowsPerSecond()) + " rows/sec)");
+	}
 
 }
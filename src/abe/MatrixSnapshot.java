@@ -0,0 +1,151 @@
+package abe;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+
+/**
+ * Writes and reads a {@link DenseCostMatrix} in a compact binary format, such that a prebuilt matrix can be loaded within milliseconds
+ * instead of parsing the text file again.
+ * 
+ * <p>Format (big endian):
+ * <pre>
+ * int    magic number 0x4A534D58 ("JSMX")
+ * int    version (1)
+ * int    flags (bit 0: symmetric)
+ * int    number of locations n
+ * n x    location id: unsigned short length + UTF-8 bytes (in order of location index)
+ *        zero padding to the next multiple of 8 bytes
+ * m x    double distances in storage layout of DenseCostMatrix, i.e. m = n*(n+1)/2 if symmetric, n*n otherwise
+ * m x    double times
+ * </pre>
+ * 
+ * @author schroeder
+ *
+ */
+public class MatrixSnapshot {
+	
+	static final int MAGIC_NUMBER = 0x4A534D58;
+	
+	static final int VERSION = 1;
+	
+	private static final int SYMMETRIC = 1;
+	
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	
+	/*
+	 * size of the windows in which distances and times are mapped, a multiple of 8 (i.e. of the size of a double)
+	 */
+	private static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+	
+	/**
+	 * Writes matrix to a binary snapshot. The matrix itself is not changed, i.e. cells of the matrix stay valid.
+	 * 
+	 * @param matrix
+	 * @param filename
+	 * @throws IOException
+	 */
+	public static void write(DenseCostMatrix matrix, String filename) throws IOException{
+		LocationIndex locationIndex = matrix.getLocationIndex();
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(filename)), 1 << 16));
+		try{
+			out.writeInt(MAGIC_NUMBER);
+			out.writeInt(VERSION);
+			out.writeInt(matrix.isSymmetric() ? SYMMETRIC : 0);
+			out.writeInt(locationIndex.size());
+			for(int i=0;i<locationIndex.size();i++){
+				byte[] id = locationIndex.getLocationId(i).getBytes(UTF_8);
+				if(id.length > 0xFFFF) throw new IllegalStateException("location id " + locationIndex.getLocationId(i) + " is too long");
+				out.writeShort(id.length);
+				out.write(id);
+			}
+			while(out.size() % 8 != 0) out.writeByte(0);
+			writeRows(out, matrix, matrix.getDistances());
+			writeRows(out, matrix, matrix.getTimes());
+		}
+		finally{
+			out.close();
+		}
+	}
+	
+	/*
+	 * writes the rows of the first n locations in the storage layout of n locations, even if the matrix has a larger capacity
+	 */
+	private static void writeRows(DataOutputStream out, DenseCostMatrix matrix, double[] values) throws IOException{
+		int n = matrix.getNuOfLocations();
+		for(int from=0;from<n;from++){
+			int rowStart = matrix.getCell(from, 0);
+			int rowLength = matrix.isSymmetric() ? from+1 : n;
+			for(int i=rowStart;i<rowStart+rowLength;i++) out.writeDouble(values[i]);
+		}
+	}
+	
+	/**
+	 * Reads a binary snapshot. The header is mapped at once, distances and times are mapped in windows, thus snapshots can be
+	 * larger than 2 GB.
+	 * 
+	 * @param filename
+	 * @return matrix
+	 * @throws IOException
+	 */
+	public static DenseCostMatrix read(String filename) throws IOException{
+		return read(filename, DEFAULT_WINDOW_SIZE);
+	}
+	
+	static DenseCostMatrix read(String filename, int windowSize) throws IOException{
+		if(windowSize <= 0 || windowSize % 8 != 0) throw new IllegalArgumentException("window size must be a positive multiple of 8");
+		RandomAccessFile file = new RandomAccessFile(new File(filename), "r");
+		try{
+			FileChannel channel = file.getChannel();
+			MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, Math.min(channel.size(), Integer.MAX_VALUE));
+			if(buffer.getInt() != MAGIC_NUMBER) throw new IllegalStateException(filename + " is not a matrix snapshot");
+			int version = buffer.getInt();
+			if(version != VERSION) throw new IllegalStateException("version " + version + " of " + filename + " is not supported");
+			boolean symmetric = (buffer.getInt() & SYMMETRIC) != 0;
+			int nuOfLocations = buffer.getInt();
+			DenseCostMatrix.checkNuOfLocations(nuOfLocations, symmetric);
+			DenseCostMatrix matrix = new DenseCostMatrix(symmetric);
+			LocationIndex locationIndex = matrix.getLocationIndex();
+			byte[] id = new byte[64];
+			for(int i=0;i<nuOfLocations;i++){
+				int length = buffer.getShort() & 0xFFFF;
+				if(length > id.length) id = new byte[length];
+				buffer.get(id, 0, length);
+				locationIndex.intern(new String(id, 0, length, UTF_8));
+			}
+			while(buffer.position() % 8 != 0) buffer.get();
+			int nuOfCells = (int)DenseCostMatrix.getNuOfCells(nuOfLocations, symmetric);
+			long distancesStart = buffer.position();
+			long timesStart = distancesStart + 8L*nuOfCells;
+			if(channel.size() < timesStart + 8L*nuOfCells) throw new IllegalStateException(filename + " is truncated");
+			double[] distances = new double[nuOfCells];
+			double[] times = new double[nuOfCells];
+			readValues(channel, distancesStart, distances, windowSize);
+			readValues(channel, timesStart, times, windowSize);
+			matrix.setArrays(distances, times);
+			return matrix;
+		}
+		finally{
+			file.close();
+		}
+	}
+
+	private static void readValues(FileChannel channel, long start, double[] values, int windowSize) throws IOException{
+		int valuesPerWindow = windowSize / 8;
+		int offset = 0;
+		while(offset < values.length){
+			int length = Math.min(valuesPerWindow, values.length-offset);
+			MappedByteBuffer window = channel.map(MapMode.READ_ONLY, start + 8L*offset, 8L*length);
+			window.asDoubleBuffer().get(values, offset, length);
+			offset += length;
+		}
+	}
+
+}
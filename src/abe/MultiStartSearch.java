@@ -0,0 +1,82 @@
+package abe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import jsprit.core.util.Solutions;
+
+/**
+ * Runs independent searches (starts) of the same problem on a bounded thread pool and returns the overall best solution.
+ * 
+ * <p>Each start creates its own algorithm with the {@link AlgorithmFactory} in the worker thread, i.e. everything an algorithm 
+ * writes (state manager, constraint manager, state updaters, objective function, etc.) must be created by the factory for each 
+ * start, while the problem and its transport costs are shared. Note that jsprit draws random numbers from a static generator,
+ * thus starts differ because they draw different numbers from it, and results are not reproducible with more than one thread.
+ * 
+ * @author schroeder
+ * 
+ */
+public class MultiStartSearch {
+	
+	public static interface AlgorithmFactory {
+		
+		public VehicleRoutingAlgorithm createAlgorithm(int start) throws Exception;
+		
+	}
+	
+	private final int nuOfThreads;
+	
+	public MultiStartSearch(int nuOfThreads) {
+		super();
+		if(nuOfThreads < 1) throw new IllegalArgumentException("nuOfThreads must be at least 1");
+		this.nuOfThreads = nuOfThreads;
+	}
+	
+	/**
+	 * Runs nuOfStarts searches and blocks until all are done.
+	 * 
+	 * @param nuOfStarts
+	 * @param algorithmFactory
+	 * @return best solution of all starts (of the lowest start if several have the same costs)
+	 * @throws InterruptedException
+	 * @throws ExecutionException if a start throws an exception. The remaining starts are cancelled then.
+	 * @throws IllegalArgumentException if nuOfStarts is smaller than 1
+	 */
+	public VehicleRoutingProblemSolution search(int nuOfStarts, final AlgorithmFactory algorithmFactory) throws InterruptedException, ExecutionException {
+		if(nuOfStarts < 1) throw new IllegalArgumentException("nuOfStarts must be at least 1");
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(nuOfThreads, nuOfStarts));
+		List<Future<VehicleRoutingProblemSolution>> futures = new ArrayList<Future<VehicleRoutingProblemSolution>>(nuOfStarts);
+		try{
+			for(int start=0;start<nuOfStarts;start++){
+				final int currentStart = start;
+				futures.add(executor.submit(new Callable<VehicleRoutingProblemSolution>() {
+					
+					@Override
+					public VehicleRoutingProblemSolution call() throws Exception {
+						VehicleRoutingAlgorithm algorithm = algorithmFactory.createAlgorithm(currentStart);
+						return Solutions.bestOf(algorithm.searchSolutions());
+					}
+					
+				}));
+			}
+			VehicleRoutingProblemSolution best = null;
+			for(Future<VehicleRoutingProblemSolution> future : futures){
+				VehicleRoutingProblemSolution solution = future.get();
+				if(best == null || solution.getCost() < best.getCost()) best = solution;
+			}
+			return best;
+		}
+		finally{
+			for(Future<VehicleRoutingProblemSolution> future : futures) future.cancel(true);
+			executor.shutdownNow();
+		}
+	}
+
+}
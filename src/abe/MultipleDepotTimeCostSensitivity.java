@@ -20,15 +20,19 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Random;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 import jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import jsprit.core.algorithm.io.AlgorithmConfig;
+import jsprit.core.algorithm.io.AlgorithmConfigXmlReader;
 import jsprit.core.algorithm.io.VehicleRoutingAlgorithms;
 import jsprit.core.problem.VehicleRoutingProblem;
 import jsprit.core.problem.VehicleRoutingProblem.FleetSize;
-import jsprit.core.problem.io.VrpXMLReader;
 import jsprit.core.problem.solution.VehicleRoutingProblemSolution;
 import jsprit.core.problem.solution.route.VehicleRoute;
 import jsprit.core.problem.solution.route.activity.TourActivity;
@@ -36,142 +40,176 @@ import jsprit.core.problem.vehicle.Vehicle;
 import jsprit.core.problem.vehicle.VehicleImpl;
 import jsprit.core.problem.vehicle.VehicleTypeImpl;
 import jsprit.core.util.Coordinate;
-import jsprit.core.util.EuclideanDistanceCalculator;
 import jsprit.core.util.Solutions;
-import jsprit.core.util.VehicleRoutingTransportCostsMatrix;
 
 
 public class MultipleDepotTimeCostSensitivity {
+	
+	static class Result {
+		final double costs;
+		final double time;
+		final double distance;
+		
+		Result(double costs, double time, double distance) {
+			super();
+			this.costs = costs;
+			this.time = time;
+			this.distance = distance;
+		}
+	}
 
 	/**
+	 * Runs 3 runs for each cost-per-time value in parallel, i.e. on as many threads as there are processors (or on args[0] threads).
+	 * 
 	 * @param args
 	 * @throws IOException 
+	 * @throws ExecutionException 
+	 * @throws InterruptedException 
 	 */
-	public static void main(String[] args) throws IOException {
+	public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+		int nuOfThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
 		
-		VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(false);
-		boolean matrixSet = false;
+		/*
+		 * Read cordeau-instance p01, BUT only its services without any vehicles. This is done only once, since the template
+		 * is immutable and can be shared by all problems of the sweep.
+		 */
+		final ProblemTemplate template = ProblemTemplate.read("input/abe/vrp_cordeau_01.xml");
 		
-		BufferedWriter writer = new BufferedWriter(new FileWriter(new File("output/abe/costOfTimeSensitivity.txt")));
+		/*
+		 * construct artificial transportTime- and transportCosts once (for all locations incl. depots). Relations are computed 
+		 * on demand and cached, and shared by all cells.
+		 */
+		VehicleRoutingProblem.Builder locationsBuilder = createProblemBuilder(template, 0.);
+		final LazyEuclideanCosts matrix = createMatrix(locationsBuilder.getLocationMap());
 		
-//		double costPerTime = 1.0;
-		writer.write("costPerTimeUnit;run;costs;time;distance\n");
+		final AlgorithmConfigPerThread algorithmConfig = new AlgorithmConfigPerThread("input/abe/algorithmConfig_stefan.xml");
 		
+		List<Double> costsPerTime = new ArrayList<Double>();
 		for(double costPerTime = 0.0; costPerTime <= 10.; costPerTime += 0.1){
-			for(int run = 0; run < 3; run++){
-				final VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
-				/*
-				 * Read cordeau-instance p01, BUT only its services without any vehicles 
-				 */
-				new VrpXMLReader(vrpBuilder).read("input/abe/vrp_cordeau_01.xml");
-
-				/*
-				 * add vehicles with its depots
-				 * 4 depots:
-				 * (20,20)
-				 * (30,40)
-				 * (50,30)
-				 * (60,50)
-				 * 
-				 * each with 4 vehicles each with a capacity of 80
-				 */
-				int nuOfVehicles = 4;
-				int capacity = 80;
-				Coordinate firstDepotCoord = Coordinate.newInstance(20, 20);
-				Coordinate second = Coordinate.newInstance(30, 40);
-				Coordinate third = Coordinate.newInstance(50, 30);
-				Coordinate fourth = Coordinate.newInstance(60, 50);
-
-				double costPerDistance = 1.0;
-
-
-				VehicleTypeImpl vehicleType = VehicleTypeImpl.Builder.newInstance("type").addCapacityDimension(0, capacity)
-						.setCostPerDistance(costPerDistance).setCostPerTime(costPerTime).build();
-
-				int depotCounter = 1;
-				for(Coordinate depotCoord : Arrays.asList(firstDepotCoord,second,third,fourth)){
-					for(int i=0;i<nuOfVehicles;i++){
-						Vehicle vehicle = VehicleImpl.Builder.newInstance(depotCounter + "_" + (i+1) + "_vehicle").
-								setStartLocationCoordinate(depotCoord).setStartLocationId(""+(100+depotCounter)).setType(vehicleType).build();
-						vrpBuilder.addVehicle(vehicle);
-					}
-					depotCounter++;
-				}
+			costsPerTime.add(costPerTime);
+		}
+		
+		ParameterSweep.Cell<Double, Result> cell = new ParameterSweep.Cell<Double, Result>() {
 
-				/*
-				 * define problem with finite fleet
-				 */
-				vrpBuilder.setFleetSize(FleetSize.FINITE);
-
-				if(!matrixSet){
-					System.out.println("construct matrix");
-					//construct artificial transportTime- and transportCostMatrix
-					Random randomNumberGenerator = new Random(Long.MAX_VALUE);
-					double probSpeedupRelation = 0.5; 
-					double percentSpeedup = 0.5;
-
-					for(String fromLocation : vrpBuilder.getLocationMap().keySet()){
-						for(String toLocation : vrpBuilder.getLocationMap().keySet()){
-							double distance = getDistance(vrpBuilder, fromLocation, toLocation);
-							matrixBuilder.addTransportDistance(fromLocation, toLocation, distance);
-							boolean speedupRelation = randomNumberGenerator.nextDouble() < probSpeedupRelation;
-							if(speedupRelation) matrixBuilder.addTransportTime(fromLocation, toLocation, (distance-distance*percentSpeedup));
-							else matrixBuilder.addTransportTime(fromLocation, toLocation, distance);
-						}
-					}
-					matrixSet = true;
-				}
-				vrpBuilder.setRoutingCost(matrixBuilder.build());
+			@Override
+			public Result run(Double costPerTime, int run) {
+				VehicleRoutingProblem.Builder vrpBuilder = createProblemBuilder(template, costPerTime);
+				vrpBuilder.setRoutingCost(matrix);
 
 				/*
 				 * build the problem
 				 */
 				VehicleRoutingProblem vrp = vrpBuilder.build();
 
-				/*
-				 * plot to see how the problem looks like
-				 */
-				//		SolutionPlotter.plotVrpAsPNG(vrp, "output/problem01.png", "p01");
-
 				/*
 				 * solve the problem
 				 */
-				VehicleRoutingAlgorithm vra = VehicleRoutingAlgorithms.readAndCreateAlgorithm(vrp, "input/abe/algorithmConfig_stefan.xml");
-				//		vra.getAlgorithmListeners().addListener(new StopWatch(),Priority.HIGH);
-				//		vra.getAlgorithmListeners().addListener(new AlgorithmSearchProgressChartListener("output/progress.png"));
-//				VariationCoefficientTermination prematureTermination = new VariationCoefficientTermination(100, 0.01);
-//				vra.addListener(prematureTermination);
-//				vra.setPrematureAlgorithmTermination(prematureTermination);
-
+				VehicleRoutingAlgorithm vra = VehicleRoutingAlgorithms.createAlgorithm(vrp, algorithmConfig.get());
 				Collection<VehicleRoutingProblemSolution> solutions = vra.searchSolutions();
+				VehicleRoutingProblemSolution bestOf = Solutions.bestOf(solutions);
+				return new Result(bestOf.getCost(), getTotalTime(vrp, bestOf), getTotalDistance(matrix, bestOf));
+			}
+			
+		};
+		
+		final BufferedWriter writer = new BufferedWriter(new FileWriter(new File("output/abe/costOfTimeSensitivity.txt")));
+		writer.write("costPerTimeUnit;run;costs;time;distance\n");
+		try{
+			new ParameterSweep<Double, Result>(nuOfThreads).run(costsPerTime, 3, cell, new ParameterSweep.ResultHandler<Double, Result>() {
 
-				//		SolutionPrinter.print(Solutions.bestOf(solutions));
-
-				//		new Plotter(vrp, Solutions.bestOf(solutions)).plot("output/p01_solution.png", "p01");
+				@Override
+				public void handleResult(Double costPerTime, int run, Result result) throws IOException {
+					writer.write(costPerTime + ";" + run + ";" + result.costs + ";" + result.time + ";" + result.distance + "\n");
+					writer.flush();
+				}
+				
+			});
+		}
+		finally{
+			writer.close();
+		}
+		
+	}
+	
+	/**
+	 * Parsed algorithm configs must not be shared by threads, thus each worker parses the config only once.
+	 */
+	static class AlgorithmConfigPerThread extends ThreadLocal<AlgorithmConfig> {
+		
+		private final String filename;
+		
+		AlgorithmConfigPerThread(String filename) {
+			super();
+			this.filename = filename;
+		}
 
-				writer.write(costPerTime + ";" + run + ";" + Solutions.bestOf(solutions).getCost() + ";" + getTotalTime(vrp, Solutions.bestOf(solutions)) + ";" + getTotalDistance(vrpBuilder, Solutions.bestOf(solutions)) + "\n");
-				//			System.out.println("total-time: " + getTotalTime(vrp, Solutions.bestOf(solutions)));
-				//			System.out.println("total-distance: " + );
-			}
+		@Override
+		protected AlgorithmConfig initialValue() {
+			AlgorithmConfig config = new AlgorithmConfig();
+			new AlgorithmConfigXmlReader(config).read(filename);
+			return config;
 		}
-		writer.close();
 		
 	}
+	
+	static VehicleRoutingProblem.Builder createProblemBuilder(ProblemTemplate template, double costPerTime) {
+		VehicleRoutingProblem.Builder vrpBuilder = template.newBuilder();
+		
+		/*
+		 * add vehicles with its depots
+		 * 4 depots:
+		 * (20,20)
+		 * (30,40)
+		 * (50,30)
+		 * (60,50)
+		 * 
+		 * each with 4 vehicles each with a capacity of 80
+		 */
+		int nuOfVehicles = 4;
+		int capacity = 80;
+		Coordinate firstDepotCoord = Coordinate.newInstance(20, 20);
+		Coordinate second = Coordinate.newInstance(30, 40);
+		Coordinate third = Coordinate.newInstance(50, 30);
+		Coordinate fourth = Coordinate.newInstance(60, 50);
+
+		double costPerDistance = 1.0;
+
+		VehicleTypeImpl vehicleType = VehicleTypeImpl.Builder.newInstance("type").addCapacityDimension(0, capacity)
+				.setCostPerDistance(costPerDistance).setCostPerTime(costPerTime).build();
+
+		int depotCounter = 1;
+		for(Coordinate depotCoord : Arrays.asList(firstDepotCoord,second,third,fourth)){
+			for(int i=0;i<nuOfVehicles;i++){
+				Vehicle vehicle = VehicleImpl.Builder.newInstance(depotCounter + "_" + (i+1) + "_vehicle").
+						setStartLocationCoordinate(depotCoord).setStartLocationId(""+(100+depotCounter)).setType(vehicleType).build();
+				vrpBuilder.addVehicle(vehicle);
+			}
+			depotCounter++;
+		}
+
+		/*
+		 * define problem with finite fleet
+		 */
+		vrpBuilder.setFleetSize(FleetSize.FINITE);
+		return vrpBuilder;
+	}
 
-	private static double getDistance(final VehicleRoutingProblem.Builder vrpBuilder,String fromLocation, String toLocation) {
-		return EuclideanDistanceCalculator.calculateDistance(vrpBuilder.getLocationMap().get(fromLocation), vrpBuilder.getLocationMap().get(toLocation));
+	private static LazyEuclideanCosts createMatrix(Map<String,Coordinate> locations) {
+		double probSpeedupRelation = 0.5; 
+		double percentSpeedup = 0.5;
+		return new LazyEuclideanCosts(locations, probSpeedupRelation, percentSpeedup, Long.MAX_VALUE, 256);
 	}
 	
-	private static double getTotalDistance(final VehicleRoutingProblem.Builder vrpBuilder, VehicleRoutingProblemSolution bestOf) {
+	private static double getTotalDistance(LazyEuclideanCosts matrix, VehicleRoutingProblemSolution bestOf) {
 		double dist = 0.0;
 		for(VehicleRoute r : bestOf.getRoutes()){
 			TourActivity last = r.getStart();
 			for(TourActivity act : r.getActivities()){
-				dist += getDistance(vrpBuilder, last.getLocationId(), act.getLocationId());
+				dist += matrix.getDistance(last.getLocationId(), act.getLocationId());
 				last=act;
 			}
 //			dist+=matrix.getDistance(last.getLocationId(), r.getEnd().getLocationId());
-			dist+=getDistance(vrpBuilder, last.getLocationId(), r.getEnd().getLocationId());
+			dist+=matrix.getDistance(last.getLocationId(), r.getEnd().getLocationId());
 		}
 		return dist;
 	}
@@ -0,0 +1,94 @@
+package abe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs independent cells (parameter, run) of a parameter sweep on a bounded thread pool.
+ * 
+ * <p>Results are handed to the {@link ResultHandler} in the calling thread and in deterministic order, i.e. ordered by
+ * parameter first and run second, no matter in which order the cells finish. Thus results can be written
+ * while the sweep is still running.
+ * 
+ * <p>Everything a cell reads (problem templates, matrices, etc.) must be either immutable or thread-safe, everything 
+ * it writes (algorithm, state manager, etc.) must be created within the cell.
+ * 
+ * @author schroeder
+ *
+ * @param <P> type of parameter
+ * @param <R> type of result
+ */
+public class ParameterSweep<P,R> {
+	
+	public static interface Cell<P,R> {
+		
+		public R run(P parameter, int run) throws Exception;
+		
+	}
+	
+	public static interface ResultHandler<P,R> {
+		
+		public void handleResult(P parameter, int run, R result) throws Exception;
+		
+	}
+	
+	private final int nuOfThreads;
+	
+	public ParameterSweep(int nuOfThreads) {
+		super();
+		if(nuOfThreads < 1) throw new IllegalArgumentException("nuOfThreads must be at least 1");
+		this.nuOfThreads = nuOfThreads;
+	}
+	
+	/**
+	 * Runs nuOfRuns cells for each parameter and blocks until all cells are done.
+	 * 
+	 * @param parameters
+	 * @param nuOfRuns
+	 * @param cell
+	 * @param resultHandler
+	 * @throws InterruptedException
+	 * @throws ExecutionException if a cell or the resultHandler throws an exception. The remaining cells are cancelled then.
+	 */
+	public void run(List<P> parameters, int nuOfRuns, final Cell<P,R> cell, ResultHandler<P,R> resultHandler) throws InterruptedException, ExecutionException {
+		ExecutorService executor = Executors.newFixedThreadPool(nuOfThreads);
+		List<Future<R>> futures = new ArrayList<Future<R>>(parameters.size()*nuOfRuns);
+		try{
+			for(final P parameter : parameters){
+				for(int run=0;run<nuOfRuns;run++){
+					final int currentRun = run;
+					futures.add(executor.submit(new Callable<R>() {
+
+						@Override
+						public R call() throws Exception {
+							return cell.run(parameter, currentRun);
+						}
+						
+					}));
+				}
+			}
+			int futureIndex = 0;
+			for(P parameter : parameters){
+				for(int run=0;run<nuOfRuns;run++){
+					R result = futures.get(futureIndex++).get();
+					try{
+						resultHandler.handleResult(parameter, run, result);
+					}
+					catch(Exception e){
+						throw new ExecutionException(e);
+					}
+				}
+			}
+		}
+		finally{
+			for(Future<R> future : futures) future.cancel(true);
+			executor.shutdownNow();
+		}
+	}
+
+}
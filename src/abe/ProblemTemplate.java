@@ -0,0 +1,118 @@
+package abe;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import jsprit.core.problem.VehicleRoutingProblem;
+import jsprit.core.problem.io.VrpXMLReader;
+import jsprit.core.problem.job.Job;
+import jsprit.core.problem.vehicle.Vehicle;
+import jsprit.core.problem.vehicle.VehicleImpl;
+import jsprit.core.problem.vehicle.VehicleType;
+import jsprit.core.util.Coordinate;
+
+/**
+ * Immutable template of a problem, i.e. its jobs, vehicles and locations, that is parsed only once and from which problem 
+ * variants can be stamped out cheaply (e.g. with other vehicles, vehicle types or transport costs).
+ * 
+ * <p>Jobs and vehicles are immutable in jsprit, thus they are shared by all problems created from the template, and a template
+ * can be used by multiple threads.
+ * 
+ * @author schroeder
+ *
+ */
+public class ProblemTemplate {
+	
+	/**
+	 * Reads jobs and vehicles of a problem file once.
+	 * 
+	 * @param filename
+	 * @return template
+	 */
+	public static ProblemTemplate read(String filename){
+		VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+		new VrpXMLReader(vrpBuilder).read(filename);
+		VehicleRoutingProblem vrp = vrpBuilder.build();
+		return new ProblemTemplate(vrp.getJobs().values(), vrp.getVehicles());
+	}
+	
+	/**
+	 * Returns a copy of vehicle with another type.
+	 * 
+	 * @param vehicle
+	 * @param type
+	 * @return vehicle of type
+	 */
+	public static Vehicle copyWithType(Vehicle vehicle, VehicleType type){
+		VehicleImpl.Builder vehicleBuilder = VehicleImpl.Builder.newInstance(vehicle.getId()).setType(type)
+				.setStartLocationId(vehicle.getStartLocationId()).setEndLocationId(vehicle.getEndLocationId())
+				.setEarliestStart(vehicle.getEarliestDeparture()).setLatestArrival(vehicle.getLatestArrival())
+				.setReturnToDepot(vehicle.isReturnToDepot());
+		if(vehicle.getStartLocationCoordinate() != null) vehicleBuilder.setStartLocationCoordinate(vehicle.getStartLocationCoordinate());
+		if(vehicle.getEndLocationCoordinate() != null) vehicleBuilder.setEndLocationCoordinate(vehicle.getEndLocationCoordinate());
+		return vehicleBuilder.build();
+	}
+	
+	private final Collection<Job> jobs;
+	
+	private final Collection<Vehicle> vehicles;
+	
+	private final Map<String,Coordinate> locations;
+	
+	public ProblemTemplate(Collection<Job> jobs, Collection<Vehicle> vehicles) {
+		super();
+		this.jobs = Collections.unmodifiableCollection(new ArrayList<Job>(jobs));
+		this.vehicles = Collections.unmodifiableCollection(new ArrayList<Vehicle>(vehicles));
+		VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+		vrpBuilder.addAllJobs(this.jobs);
+		vrpBuilder.addAllVehicles(this.vehicles);
+		this.locations = Collections.unmodifiableMap(new HashMap<String,Coordinate>(vrpBuilder.getLocationMap()));
+	}
+
+	public Collection<Job> getJobs() {
+		return jobs;
+	}
+
+	public Collection<Vehicle> getVehicles() {
+		return vehicles;
+	}
+
+	/**
+	 * Returns coordinates of the locations of jobs and vehicles in the template.
+	 * 
+	 * @return locations
+	 */
+	public Map<String, Coordinate> getLocations() {
+		return locations;
+	}
+	
+	/**
+	 * Returns a new builder that already contains the jobs of the template, but no vehicles. Add vehicles, fleet size 
+	 * and routing costs, and build the problem.
+	 * 
+	 * @return vrpBuilder
+	 */
+	public VehicleRoutingProblem.Builder newBuilder(){
+		VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+		vrpBuilder.addAllJobs(jobs);
+		return vrpBuilder;
+	}
+	
+	/**
+	 * Returns a new builder that contains the jobs of the template and its vehicles, where each vehicle gets the specified type.
+	 * 
+	 * @param type
+	 * @return vrpBuilder
+	 */
+	public VehicleRoutingProblem.Builder newBuilder(VehicleType type){
+		VehicleRoutingProblem.Builder vrpBuilder = newBuilder();
+		for(Vehicle vehicle : vehicles){
+			vrpBuilder.addVehicle(copyWithType(vehicle, type));
+		}
+		return vrpBuilder;
+	}
+
+}
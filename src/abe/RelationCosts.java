@@ -0,0 +1,36 @@
+package abe;
+
+/**
+ * Mutable holder of distance, transport time and transport cost of a relation. It is meant to be re-used for many lookups, thus
+ * a combined lookup does not allocate anything.
+ * 
+ * @author schroeder
+ *
+ */
+public class RelationCosts {
+	
+	private double distance;
+	
+	private double time;
+	
+	private double cost;
+	
+	public void set(double distance, double time, double cost){
+		this.distance = distance;
+		this.time = time;
+		this.cost = cost;
+	}
+
+	public double getDistance() {
+		return distance;
+	}
+
+	public double getTime() {
+		return time;
+	}
+
+	public double getCost() {
+		return cost;
+	}
+
+}
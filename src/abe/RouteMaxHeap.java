@@ -0,0 +1,176 @@
+package abe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import jsprit.core.problem.solution.route.VehicleRoute;
+
+/**
+ * Indexed max-heap of route values (e.g. transport times), i.e. the value of a route can be added, changed or removed in O(log R),
+ * and the maximum and the sum of all values can be retrieved in O(1).
+ * 
+ * <p>Routes are identified by identity. It is not thread-safe, i.e. use one heap per algorithm.
+ * 
+ * @author schroeder
+ *
+ */
+public class RouteMaxHeap {
+	
+	private VehicleRoute[] routes = new VehicleRoute[16];
+	
+	private double[] values = new double[16];
+	
+	private int size = 0;
+	
+	private Map<VehicleRoute,Integer> positions = new IdentityHashMap<VehicleRoute,Integer>();
+	
+	private double sum = 0.;
+	
+	/**
+	 * Adds route with value or, if route is already in the heap, updates its value.
+	 * 
+	 * @param route
+	 * @param value
+	 */
+	public void update(VehicleRoute route, double value){
+		Integer position = positions.get(route);
+		if(position == null){
+			if(size == routes.length){
+				routes = Arrays.copyOf(routes, size*2);
+				values = Arrays.copyOf(values, size*2);
+			}
+			routes[size] = route;
+			values[size] = value;
+			positions.put(route, size);
+			sum += value;
+			siftUp(size++);
+			return;
+		}
+		double oldValue = values[position];
+		values[position] = value;
+		sum += value - oldValue;
+		if(value > oldValue) siftUp(position);
+		else siftDown(position);
+	}
+	
+	public void remove(VehicleRoute route){
+		Integer position = positions.remove(route);
+		if(position == null) return;
+		sum -= values[position];
+		size--;
+		if(position == size){
+			routes[size] = null;
+			return;
+		}
+		routes[position] = routes[size];
+		values[position] = values[size];
+		routes[size] = null;
+		positions.put(routes[position], position);
+		siftUp(position);
+		siftDown(positions.get(routes[position]));
+	}
+	
+	/**
+	 * Removes all routes that are not in the specified collection, e.g. routes of another solution.
+	 * 
+	 * @param routesToRetain
+	 */
+	public void retainAll(Collection<VehicleRoute> routesToRetain){
+		Set<VehicleRoute> retain = Collections.newSetFromMap(new IdentityHashMap<VehicleRoute,Boolean>());
+		retain.addAll(routesToRetain);
+		List<VehicleRoute> routesToRemove = new ArrayList<VehicleRoute>();
+		for(int i=0;i<size;i++){
+			if(!retain.contains(routes[i])) routesToRemove.add(routes[i]);
+		}
+		for(VehicleRoute route : routesToRemove) remove(route);
+	}
+	
+	public void clear(){
+		Arrays.fill(routes, 0, size, null);
+		size = 0;
+		sum = 0.;
+		positions.clear();
+	}
+	
+	public boolean contains(VehicleRoute route){
+		return positions.containsKey(route);
+	}
+	
+	/**
+	 * Returns value of route or Double.NaN if the route is not in the heap.
+	 * 
+	 * @param route
+	 * @return value
+	 */
+	public double getValue(VehicleRoute route){
+		Integer position = positions.get(route);
+		if(position == null) return Double.NaN;
+		return values[position];
+	}
+	
+	/**
+	 * Returns the maximum value or 0.0 if the heap is empty.
+	 * 
+	 * @return max
+	 */
+	public double getMax(){
+		if(size == 0) return 0.;
+		return values[0];
+	}
+	
+	public VehicleRoute getMaxRoute(){
+		if(size == 0) return null;
+		return routes[0];
+	}
+	
+	public double getSum(){
+		return sum;
+	}
+	
+	public int size(){
+		return size;
+	}
+
+	private void siftUp(int position) {
+		VehicleRoute route = routes[position];
+		double value = values[position];
+		while(position > 0){
+			int parent = (position-1)/2;
+			if(values[parent] >= value) break;
+			move(parent, position);
+			position = parent;
+		}
+		routes[position] = route;
+		values[position] = value;
+		positions.put(route, position);
+	}
+	
+	private void siftDown(int position) {
+		VehicleRoute route = routes[position];
+		double value = values[position];
+		while(true){
+			int child = 2*position+1;
+			if(child >= size) break;
+			if(child+1 < size && values[child+1] > values[child]) child++;
+			if(values[child] <= value) break;
+			move(child, position);
+			position = child;
+		}
+		routes[position] = route;
+		values[position] = value;
+		positions.put(route, position);
+	}
+
+	private void move(int from, int to) {
+		routes[to] = routes[from];
+		values[to] = values[from];
+		positions.put(routes[to], to);
+	}
+
+}
@@ -0,0 +1,289 @@
+package abe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jsprit.core.problem.cost.AbstractForwardVehicleRoutingTransportCosts;
+import jsprit.core.problem.driver.Driver;
+import jsprit.core.problem.vehicle.Vehicle;
+import jsprit.core.problem.vehicle.VehicleTypeImpl.VehicleCostParams;
+
+/**
+ * Transport costs based on a {@link DenseCostMatrix} and speed profiles, i.e.
+ * 
+ * <p>transportTime(from,to,vehicle) = baseTime(from,to) * profileFactor(vehicle) * relationFactor(from,to)
+ * 
+ * <p>where baseTime is either the matrix' time or its distance (see {@link Builder#setTimeFromDistance(boolean)}). Vehicles are
+ * mapped to a dense profile index when the costs are built (by vehicle id or, if there is none, by type id), profile factors are stored
+ * in a double array and relation factors in a primitive open addressing table. Thus a transport time query does not compare any strings.
+ * 
+ * <p>It is immutable and can be shared among threads.
+ * 
+ * @author schroeder
+ * 
+ */
+public class SpeedProfileCosts extends AbstractForwardVehicleRoutingTransportCosts {
+	
+	public static class Builder {
+		
+		public static Builder newInstance(DenseCostMatrix matrix){
+			return new Builder(matrix);
+		}
+		
+		private final DenseCostMatrix matrix;
+		
+		private boolean timeFromDistance = false;
+		
+		private Map<String,Integer> profileIndices = new HashMap<String,Integer>();
+		
+		private List<Double> profileFactors = new ArrayList<Double>();
+		
+		private Map<String,String> vehicleProfiles = new HashMap<String,String>();
+		
+		private Map<String,String> typeProfiles = new HashMap<String,String>();
+		
+		private List<String[]> relations = new ArrayList<String[]>();
+		
+		private List<Double> relationFactors = new ArrayList<Double>();
+		
+		private Builder(DenseCostMatrix matrix){
+			this.matrix = matrix;
+			profileFactors.add(1.);
+		}
+		
+		/**
+		 * Sets whether the base time is the matrix' distance (i.e. profile factors are 1/velocity) or the matrix' time. Default is false.
+		 * 
+		 * @param timeFromDistance
+		 * @return builder
+		 */
+		public Builder setTimeFromDistance(boolean timeFromDistance){
+			this.timeFromDistance = timeFromDistance;
+			return this;
+		}
+		
+		/**
+		 * Sets the factor of vehicles without profile. Default is 1.0.
+		 * 
+		 * @param factor
+		 * @return builder
+		 */
+		public Builder setDefaultFactor(double factor){
+			profileFactors.set(0, factor);
+			return this;
+		}
+		
+		public Builder addProfile(String profileId, double factor){
+			if(profileIndices.containsKey(profileId)) throw new IllegalArgumentException("profile " + profileId + " already exists");
+			profileIndices.put(profileId, profileFactors.size());
+			profileFactors.add(factor);
+			return this;
+		}
+		
+		public Builder setVehicleProfile(String vehicleId, String profileId){
+			vehicleProfiles.put(vehicleId, profileId);
+			return this;
+		}
+		
+		public Builder setVehicleTypeProfile(String typeId, String profileId){
+			typeProfiles.put(typeId, profileId);
+			return this;
+		}
+		
+		/**
+		 * Sets the factor of relation from -> to (for all vehicles). Relations are directed, even if the matrix is symmetric.
+		 * 
+		 * @param fromId
+		 * @param toId
+		 * @param factor
+		 * @return builder
+		 */
+		public Builder setRelationFactor(String fromId, String toId, double factor){
+			relations.add(new String[]{ fromId, toId });
+			relationFactors.add(factor);
+			return this;
+		}
+		
+		/**
+		 * Builds the costs, and maps vehicles to their profiles.
+		 * 
+		 * @param vehicles
+		 * @return costs
+		 */
+		public SpeedProfileCosts build(Collection<Vehicle> vehicles){
+			return new SpeedProfileCosts(this, vehicles);
+		}
+		
+		private int getProfileIndex(String profileId){
+			Integer index = profileIndices.get(profileId);
+			if(index == null) throw new IllegalArgumentException("profile " + profileId + " does not exist");
+			return index;
+		}
+		
+		private int getProfileIndex(Vehicle vehicle){
+			String profileId = vehicleProfiles.get(vehicle.getId());
+			if(profileId == null) profileId = typeProfiles.get(vehicle.getType().getTypeId());
+			if(profileId == null) return 0;
+			return getProfileIndex(profileId);
+		}
+	
+	}
+	
+	private final DenseCostMatrix matrix;
+	
+	private final LocationIndex locationIndex;
+	
+	private final boolean timeFromDistance;
+	
+	private final double[] profileFactors;
+	
+	private final Map<Vehicle,Integer> vehicleProfiles;
+	
+	private final Map<String,Integer> vehicleIdProfiles = new HashMap<String,Integer>();
+	
+	private final Map<String,Integer> typeProfiles = new HashMap<String,Integer>();
+	
+	private final long[] relationKeys;
+	
+	private final double[] relationFactors;
+	
+	private final int relationMask;
+	
+	private final boolean hasRelationFactors;
+	
+	private SpeedProfileCosts(Builder builder, Collection<Vehicle> vehicles){
+		this.matrix = builder.matrix;
+		this.locationIndex = matrix.getLocationIndex();
+		this.timeFromDistance = builder.timeFromDistance;
+		this.profileFactors = new double[builder.profileFactors.size()];
+		for(int i=0;i<profileFactors.length;i++) profileFactors[i] = builder.profileFactors.get(i);
+		this.vehicleProfiles = new IdentityHashMap<Vehicle,Integer>();
+		for(Vehicle vehicle : vehicles){
+			vehicleProfiles.put(vehicle, builder.getProfileIndex(vehicle));
+		}
+		for(Map.Entry<String,String> e : builder.vehicleProfiles.entrySet()) vehicleIdProfiles.put(e.getKey(), builder.getProfileIndex(e.getValue()));
+		for(Map.Entry<String,String> e : builder.typeProfiles.entrySet()) typeProfiles.put(e.getKey(), builder.getProfileIndex(e.getValue()));
+		int capacity = 2;
+		while(capacity < 2*builder.relations.size()) capacity <<= 1;
+		relationKeys = new long[capacity];
+		relationFactors = new double[capacity];
+		relationMask = capacity - 1;
+		Arrays.fill(relationKeys, -1L);
+		for(int r=0;r<builder.relations.size();r++){
+			int from = locationIndex.getIndex(builder.relations.get(r)[0]);
+			int to = locationIndex.getIndex(builder.relations.get(r)[1]);
+			if(from < 0 || to < 0) throw new IllegalArgumentException("relation " + builder.relations.get(r)[0] + "_" + builder.relations.get(r)[1] + " does not exist in matrix");
+			long key = key(from, to);
+			int slot = slot(key);
+			while(relationKeys[slot] != -1L && relationKeys[slot] != key) slot = (slot + 1) & relationMask;
+			relationKeys[slot] = key;
+			relationFactors[slot] = builder.relationFactors.get(r);
+		}
+		this.hasRelationFactors = !builder.relations.isEmpty();
+	}
+	
+	/**
+	 * Returns the profile index of vehicle, 0 if vehicle is null or does not have a profile.
+	 * 
+	 * @param vehicle
+	 * @return profile index
+	 */
+	public int getProfileIndex(Vehicle vehicle){
+		if(vehicle == null) return 0;
+		Integer profile = vehicleProfiles.get(vehicle);
+		if(profile != null) return profile;
+		//vehicle was not known when costs were built, e.g. a copy with another type
+		profile = vehicleIdProfiles.get(vehicle.getId());
+		if(profile == null) profile = typeProfiles.get(vehicle.getType().getTypeId());
+		if(profile == null) return 0;
+		return profile;
+	}
+	
+	public double getTransportTime(int from, int to, int profile){
+		int cell = matrix.getCell(from, to);
+		return getTransportTime(cell, from, to, profile);
+	}
+	
+	private double getTransportTime(int cell, int from, int to, int profile){
+		double baseTime = timeFromDistance ? matrix.getDistanceOfCell(cell, from, to) : matrix.getTransportTimeOfCell(cell, from, to);
+		return baseTime * profileFactors[profile] * getRelationFactor(from, to);
+	}
+	
+	/**
+	 * Fills result with distance, transport time and transport cost of relation from -> to with a single matrix lookup. If vehicle is
+	 * null, cost is the distance.
+	 * 
+	 * @param from
+	 * @param to
+	 * @param vehicle
+	 * @param result
+	 * @return result
+	 */
+	public RelationCosts getRelationCosts(int from, int to, Vehicle vehicle, RelationCosts result){
+		int cell = matrix.getCell(from, to);
+		double distance = matrix.getDistanceOfCell(cell, from, to);
+		double time = getTransportTime(cell, from, to, getProfileIndex(vehicle));
+		if(vehicle == null){
+			result.set(distance, time, distance);
+		}
+		else{
+			VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+			result.set(distance, time, costParams.perDistanceUnit*distance + costParams.perTimeUnit*time);
+		}
+		return result;
+	}
+	
+	public RelationCosts getRelationCosts(String fromId, String toId, Vehicle vehicle, RelationCosts result){
+		return getRelationCosts(getIndex(fromId), getIndex(toId), vehicle, result);
+	}
+	
+	@Override
+	public double getTransportTime(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+		return getTransportTime(getIndex(fromId), getIndex(toId), getProfileIndex(vehicle));
+	}
+	
+	@Override
+	public double getTransportCost(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+		int from = getIndex(fromId);
+		int to = getIndex(toId);
+		int cell = matrix.getCell(from, to);
+		double distance = matrix.getDistanceOfCell(cell, from, to);
+		if(vehicle == null) return distance;
+		VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+		if(costParams.perTimeUnit == 0.) return costParams.perDistanceUnit*distance;
+		return costParams.perDistanceUnit*distance + costParams.perTimeUnit*getTransportTime(cell, from, to, getProfileIndex(vehicle));
+	}
+	
+	private int getIndex(String locationId){
+		int index = locationIndex.getIndex(locationId);
+		if(index < 0) throw new IllegalStateException("location " + locationId + " does not exist in matrix");
+		return index;
+	}
+	
+	private double getRelationFactor(int from, int to) {
+		if(!hasRelationFactors) return 1.;
+		long key = key(from, to);
+		int slot = slot(key);
+		long k;
+		while((k = relationKeys[slot]) != -1L){
+			if(k == key) return relationFactors[slot];
+			slot = (slot + 1) & relationMask;
+		}
+		return 1.;
+	}
+	
+	private static long key(int from, int to){
+		return ((long) from << 32) | (to & 0xffffffffL);
+	}
+	
+	private int slot(long key){
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h >>> 32) & relationMask;
+	}
+
+}
@@ -0,0 +1,16 @@
+package abe;
+
+import jsprit.core.problem.solution.route.state.StateFactory;
+import jsprit.core.problem.solution.route.state.StateFactory.StateId;
+
+/**
+ * State ids used in this package. They are created once, thus constraints and updaters do not need to create them in hot paths.
+ * 
+ * @author schroeder
+ *
+ */
+public class StateIds {
+	
+	public static final StateId ROUTE_TRANSPORT_TIME = StateFactory.createId("route-transport-time");
+
+}
@@ -0,0 +1,221 @@
+package abe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import jsprit.core.problem.driver.Driver;
+import jsprit.core.problem.vehicle.Vehicle;
+import jsprit.core.problem.vehicle.VehicleTypeImpl.VehicleCostParams;
+
+/**
+ * Time-dependent transport costs based on a {@link DenseCostMatrix}. Relations can have a piecewise-linear travel-time profile, i.e.
+ * travel times at departure time breakpoints, that is linearly interpolated between breakpoints and constant before the first and
+ * after the last breakpoint. Relations without profile have the constant time of the matrix.
+ * 
+ * <p>Profiles must fulfill the FIFO property, i.e. departing later never means arriving earlier (slope of travel time > -1). Thus arrival
+ * times are strictly increasing in departure time, and the backward transport time (from a given arrival time) is consistent with the
+ * forward transport time, i.e. departing at arrivalTime - getBackwardTransportTime(...,arrivalTime,...) arrives at arrivalTime.
+ * 
+ * <p>Profiles are packed into primitive arrays (departure times, travel times and arrival times of all profiles one after another),
+ * and a lookup is a binary search on the breakpoints of one profile. Profiles are assigned to matrix cells, thus if the matrix is symmetric,
+ * a profile applies to both directions of a relation. The matrix must not grow anymore once the costs are built.
+ * 
+ * @author schroeder
+ * 
+ */
+public class TimeDependentCostMatrix implements VehicleRoutingTransportCosts {
+	
+	public static class Builder {
+		
+		public static Builder newInstance(DenseCostMatrix matrix){
+			return new Builder(matrix);
+		}
+		
+		private final DenseCostMatrix matrix;
+		
+		private List<int[]> relations = new ArrayList<int[]>();
+		
+		private List<double[]> departureTimes = new ArrayList<double[]>();
+		
+		private List<double[]> travelTimes = new ArrayList<double[]>();
+		
+		private int nuOfBreakpoints = 0;
+		
+		private Builder(DenseCostMatrix matrix){
+			this.matrix = matrix;
+		}
+		
+		/**
+		 * Adds travel-time profile of relation from -> to.
+		 * 
+		 * @param fromId
+		 * @param toId
+		 * @param departureTimes strictly increasing departure times
+		 * @param travelTimes travel times when departing at departureTimes
+		 * @return builder
+		 * @throws IllegalArgumentException if departure times are not strictly increasing or profile is not FIFO
+		 */
+		public Builder addProfile(String fromId, String toId, double[] departureTimes, double[] travelTimes){
+			if(departureTimes.length == 0 || departureTimes.length != travelTimes.length){
+				throw new IllegalArgumentException("profile of " + fromId + "_" + toId + " needs as many travel times as departure times (at least one)");
+			}
+			for(int i=1;i<departureTimes.length;i++){
+				if(departureTimes[i] <= departureTimes[i-1]){
+					throw new IllegalArgumentException("departure times of " + fromId + "_" + toId + " must be strictly increasing");
+				}
+				if(departureTimes[i] + travelTimes[i] <= departureTimes[i-1] + travelTimes[i-1]){
+					throw new IllegalArgumentException("profile of " + fromId + "_" + toId + " violates FIFO, i.e. departing later must mean arriving later");
+				}
+			}
+			int from = matrix.getLocationIndex().getIndex(fromId);
+			int to = matrix.getLocationIndex().getIndex(toId);
+			if(from < 0 || to < 0) throw new IllegalArgumentException("relation " + fromId + "_" + toId + " does not exist in matrix");
+			relations.add(new int[]{ from, to });
+			this.departureTimes.add(departureTimes.clone());
+			this.travelTimes.add(travelTimes.clone());
+			nuOfBreakpoints += departureTimes.length;
+			return this;
+		}
+		
+		/**
+		 * Builds the costs.
+		 * 
+		 * @return costs
+		 * @throws IllegalArgumentException if a relation has more than one profile, e.g. both directions of a relation of a symmetric matrix
+		 */
+		public TimeDependentCostMatrix build(){
+			return new TimeDependentCostMatrix(this);
+		}
+	
+	}
+	
+	private final DenseCostMatrix matrix;
+	
+	private final LocationIndex locationIndex;
+	
+	/*
+	 * profile of cell c is breakpoints [profileStarts[c]..profileEnds[c]-1], profileStarts[c] == profileEnds[c] if there is no profile
+	 */
+	private final int[] profileStarts;
+	
+	private final int[] profileEnds;
+	
+	private final double[] departureTimes;
+	
+	private final double[] travelTimes;
+	
+	private final double[] arrivalTimes;
+	
+	private TimeDependentCostMatrix(Builder builder){
+		this.matrix = builder.matrix;
+		this.locationIndex = matrix.getLocationIndex();
+		int nuOfCells = matrix.getDistances().length;
+		profileStarts = new int[nuOfCells];
+		profileEnds = new int[nuOfCells];
+		departureTimes = new double[builder.nuOfBreakpoints];
+		travelTimes = new double[builder.nuOfBreakpoints];
+		arrivalTimes = new double[builder.nuOfBreakpoints];
+		int next = 0;
+		for(int r=0;r<builder.relations.size();r++){
+			int cell = matrix.getCell(builder.relations.get(r)[0], builder.relations.get(r)[1]);
+			double[] profileDepartureTimes = builder.departureTimes.get(r);
+			double[] profileTravelTimes = builder.travelTimes.get(r);
+			if(profileEnds[cell] != 0){
+				throw new IllegalArgumentException("relation " + locationIndex.getLocationId(builder.relations.get(r)[0]) + "_" 
+						+ locationIndex.getLocationId(builder.relations.get(r)[1]) + " has more than one profile" 
+						+ (matrix.isSymmetric() ? " (both directions of a relation share one profile since matrix is symmetric)" : ""));
+			}
+			profileStarts[cell] = next;
+			for(int i=0;i<profileDepartureTimes.length;i++){
+				departureTimes[next] = profileDepartureTimes[i];
+				travelTimes[next] = profileTravelTimes[i];
+				arrivalTimes[next] = profileDepartureTimes[i] + profileTravelTimes[i];
+				next++;
+			}
+			profileEnds[cell] = next;
+		}
+	}
+	
+	public double getTransportTime(int from, int to, double departureTime){
+		int cell = matrix.getCell(from, to);
+		int start = profileStarts[cell];
+		int end = profileEnds[cell];
+		if(start == end) return matrix.getTransportTimeOfCell(cell, from, to);
+		if(departureTime <= departureTimes[start]) return travelTimes[start];
+		if(departureTime >= departureTimes[end-1]) return travelTimes[end-1];
+		int i = segment(departureTimes, start, end, departureTime);
+		return interpolate(departureTimes[i], departureTimes[i+1], travelTimes[i], travelTimes[i+1], departureTime);
+	}
+	
+	/**
+	 * Returns the travel time of relation from -> to when arriving at arrivalTime.
+	 * 
+	 * @param from
+	 * @param to
+	 * @param arrivalTime
+	 * @return travel time
+	 */
+	public double getBackwardTransportTime(int from, int to, double arrivalTime){
+		int cell = matrix.getCell(from, to);
+		int start = profileStarts[cell];
+		int end = profileEnds[cell];
+		if(start == end) return matrix.getTransportTimeOfCell(cell, from, to);
+		if(arrivalTime <= arrivalTimes[start]) return travelTimes[start];
+		if(arrivalTime >= arrivalTimes[end-1]) return travelTimes[end-1];
+		int i = segment(arrivalTimes, start, end, arrivalTime);
+		double departureTime = interpolate(arrivalTimes[i], arrivalTimes[i+1], departureTimes[i], departureTimes[i+1], arrivalTime);
+		return arrivalTime - departureTime;
+	}
+	
+	/*
+	 * returns i such that values[i] <= value < values[i+1], requires values[start] < value < values[end-1]
+	 */
+	private static int segment(double[] values, int start, int end, double value){
+		int i = Arrays.binarySearch(values, start, end, value);
+		if(i >= 0) return i;
+		return -i - 2;
+	}
+	
+	private static double interpolate(double x0, double x1, double y0, double y1, double x){
+		return y0 + (y1 - y0) * (x - x0) / (x1 - x0);
+	}
+	
+	@Override
+	public double getTransportTime(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+		return getTransportTime(getIndex(fromId), getIndex(toId), departureTime);
+	}
+	
+	@Override
+	public double getBackwardTransportTime(String fromId, String toId, double arrivalTime, Driver driver, Vehicle vehicle) {
+		return getBackwardTransportTime(getIndex(fromId), getIndex(toId), arrivalTime);
+	}
+	
+	@Override
+	public double getTransportCost(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
+		int from = getIndex(fromId);
+		int to = getIndex(toId);
+		double distance = matrix.getDistance(from, to);
+		if(vehicle == null) return distance;
+		VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+		return costParams.perDistanceUnit*distance + costParams.perTimeUnit*getTransportTime(from, to, departureTime);
+	}
+	
+	@Override
+	public double getBackwardTransportCost(String fromId, String toId, double arrivalTime, Driver driver, Vehicle vehicle) {
+		int from = getIndex(fromId);
+		int to = getIndex(toId);
+		double distance = matrix.getDistance(from, to);
+		if(vehicle == null) return distance;
+		VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+		return costParams.perDistanceUnit*distance + costParams.perTimeUnit*getBackwardTransportTime(from, to, arrivalTime);
+	}
+	
+	private int getIndex(String locationId){
+		int index = locationIndex.getIndex(locationId);
+		if(index < 0) throw new IllegalStateException("location " + locationId + " does not exist in matrix");
+		return index;
+	}
+
+}
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either 
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public 
+ * License along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package sschroeder;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import jsprit.core.algorithm.ruin.listener.RuinListener;
+import jsprit.core.problem.job.Job;
+import jsprit.core.problem.solution.route.VehicleRoute;
+import jsprit.core.problem.solution.route.activity.TourActivity;
+
+/**
+ * Stores a double-valued state per activity in primitive arrays, i.e. put and get do not box values. 
+ * 
+ * <p>Activities are keyed by identity in an open addressing table (activities do not have an index in this version of jsprit). Since
+ * solutions are copied in each iteration, states are cleared once ruin starts, and are re-calculated when the stateManager revisits 
+ * the routes before insertion starts. Register it with stateManager.addListener(...).
+ * 
+ * @author schroeder
+ *
+ */
+class ActivityDoubleStates implements RuinListener {
+	
+	private TourActivity[] activities;
+	
+	private double[] values;
+	
+	private int size;
+	
+	private int mask;
+	
+	public ActivityDoubleStates() {
+		super();
+		allocate(64);
+	}
+	
+	private void allocate(int capacity){
+		activities = new TourActivity[capacity];
+		values = new double[capacity];
+		mask = capacity - 1;
+		size = 0;
+	}
+	
+	/**
+	 * Returns the state of activity or defaultValue if there is no state.
+	 * 
+	 * @param activity
+	 * @param defaultValue
+	 * @return state
+	 */
+	public double get(TourActivity activity, double defaultValue){
+		int slot = hash(activity);
+		TourActivity a;
+		while((a = activities[slot]) != null){
+			if(a == activity) return values[slot];
+			slot = (slot + 1) & mask;
+		}
+		return defaultValue;
+	}
+	
+	public void put(TourActivity activity, double value){
+		int slot = hash(activity);
+		TourActivity a;
+		while((a = activities[slot]) != null){
+			if(a == activity){
+				values[slot] = value;
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		activities[slot] = activity;
+		values[slot] = value;
+		size++;
+		if(2*size > activities.length) rehash();
+	}
+	
+	public int size(){
+		return size;
+	}
+	
+	public void clear(){
+		Arrays.fill(activities, null);
+		size = 0;
+	}
+
+	private void rehash() {
+		TourActivity[] oldActivities = activities;
+		double[] oldValues = values;
+		allocate(2*oldActivities.length);
+		for(int i=0;i<oldActivities.length;i++){
+			if(oldActivities[i] != null) put(oldActivities[i], oldValues[i]);
+		}
+	}
+
+	private int hash(TourActivity activity) {
+		int h = System.identityHashCode(activity);
+		h ^= (h >>> 16);
+		h *= 0x85ebca6b;
+		h ^= (h >>> 13);
+		return h & mask;
+	}
+
+	@Override
+	public void ruinStarts(Collection<VehicleRoute> routes) {
+		clear();
+	}
+
+	@Override
+	public void ruinEnds(Collection<VehicleRoute> routes, Collection<Job> unassignedJobs) {}
+
+	@Override
+	public void removed(Job job, VehicleRoute fromRoute) {}
+
+}
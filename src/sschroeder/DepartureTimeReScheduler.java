@@ -16,40 +16,63 @@
  ******************************************************************************/
 package sschroeder;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 import jsprit.core.algorithm.listener.AlgorithmEndsListener;
-import jsprit.core.algorithm.state.UpdateActivityTimes;
 import jsprit.core.problem.VehicleRoutingProblem;
-import jsprit.core.problem.cost.TransportTime;
 import jsprit.core.problem.solution.VehicleRoutingProblemSolution;
-import jsprit.core.problem.solution.route.RouteActivityVisitor;
 import jsprit.core.problem.solution.route.VehicleRoute;
-import jsprit.core.problem.solution.route.activity.TourActivity;
 import jsprit.core.util.Solutions;
 
+/**
+ * Re-schedules departure times of the best solution's routes (or of all solutions' routes) once the algorithm ends, such that 
+ * waiting times at first activities are avoided.
+ * 
+ * @author schroeder
+ *
+ */
 public class DepartureTimeReScheduler implements AlgorithmEndsListener {
+	
+	private final int nuOfThreads;
+	
+	private boolean reScheduleAllSolutions = false;
+	
+	public DepartureTimeReScheduler() {
+		this(1);
+	}
+	
+	public DepartureTimeReScheduler(int nuOfThreads) {
+		super();
+		this.nuOfThreads = nuOfThreads;
+	}
+	
+	/**
+	 * Sets whether the routes of all solutions are re-scheduled, otherwise only the routes of the best solution. Default is false.
+	 * 
+	 * @param reScheduleAllSolutions
+	 */
+	public void setReScheduleAllSolutions(boolean reScheduleAllSolutions) {
+		this.reScheduleAllSolutions = reScheduleAllSolutions;
+	}
 
 	@Override
 	public void informAlgorithmEnds(VehicleRoutingProblem problem,Collection<VehicleRoutingProblemSolution> solutions) {
-		VehicleRoutingProblemSolution solution = Solutions.bestOf(solutions);
-		for(VehicleRoute route : solution.getRoutes()){
-			if(!route.isEmpty()){
-				double earliestDepartureTime = route.getDepartureTime();
-				TourActivity firstActivity = route.getActivities().get(0);
-				double tpTime_startToFirst = problem.getTransportCosts().getTransportTime(route.getStart().getLocationId(), firstActivity.getLocationId(), 
-						earliestDepartureTime, null, route.getVehicle());
-				double newDepartureTime = Math.max(earliestDepartureTime, firstActivity.getTheoreticalEarliestOperationStartTime()-tpTime_startToFirst);
-				route.setVehicleAndDepartureTime(route.getVehicle(), newDepartureTime);
-				updateActivityTimes(route, problem.getTransportCosts());
-			}
+		List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+		if(reScheduleAllSolutions){
+			for(VehicleRoutingProblemSolution solution : solutions) routes.addAll(solution.getRoutes());
+		}
+		else routes.addAll(Solutions.bestOf(solutions).getRoutes());
+		try {
+			new RouteReScheduler(problem.getTransportCosts(), nuOfThreads).reSchedule(routes);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
 		}
 	}
 	
-	public void updateActivityTimes(VehicleRoute route, TransportTime transportTimes){
-		RouteActivityVisitor routeVisitor = new RouteActivityVisitor();
-		routeVisitor.addActivityVisitor(new UpdateActivityTimes(transportTimes));
-		routeVisitor.visit(route);
-	}
-	
-}
\ No newline at end of file
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either 
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public 
+ * License along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package sschroeder;
+
+import jsprit.core.algorithm.state.StateManager;
+import jsprit.core.problem.solution.SolutionCostCalculator;
+import jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import jsprit.core.problem.solution.route.VehicleRoute;
+import jsprit.core.problem.solution.route.state.StateFactory;
+
+/**
+ * Objective that costs each route with its fixed and variable costs plus the costs of the driver's operation time, i.e. 
+ * costPerDriverTimeUnit * (arrival@depot - departure@depot), where departure@depot is the optimized departure memorized as route 
+ * state {@link StateIds#DEPARTURE_AT_DEPOT} (see {@link UpdateDepartureTime}). Thus every solution is costed during search as it is 
+ * dispatched once {@link DepartureTimeReScheduler} has re-scheduled it.
+ * 
+ * @author schroeder
+ *
+ */
+public class DriverTimeObjective implements SolutionCostCalculator {
+	
+	/**
+	 * Returns the driver's operation time of route if it departs at departureTime.
+	 * 
+	 * @param route
+	 * @param departureTime
+	 * @return operation time
+	 */
+	static double getDriverTime(VehicleRoute route, double departureTime){
+		if(route.isEmpty()) return 0.;
+		return route.getEnd().getArrTime() - departureTime;
+	}
+	
+	private final StateManager states;
+	
+	private final double costPerDriverTimeUnit;
+	
+	public DriverTimeObjective(StateManager states, double costPerDriverTimeUnit) {
+		super();
+		this.states = states;
+		this.costPerDriverTimeUnit = costPerDriverTimeUnit;
+	}
+	
+	@Override
+	public double getCosts(VehicleRoutingProblemSolution solution) {
+		double costs = 0.;
+		for(VehicleRoute route : solution.getRoutes()){
+			costs += route.getVehicle().getType().getVehicleCostParams().fix;
+			Double variableCosts = states.getRouteState(route, StateFactory.COSTS, Double.class);
+			if(variableCosts != null) costs += variableCosts;
+			costs += costPerDriverTimeUnit * getDriverTime(route, getDepartureTime(route));
+		}
+		return costs;
+	}
+	
+	/**
+	 * Returns the optimized departure time of route, or its earliest departure if it has not been updated yet.
+	 */
+	private double getDepartureTime(VehicleRoute route) {
+		Double departure = states.getRouteState(route, StateIds.DEPARTURE_AT_DEPOT, Double.class);
+		if(departure == null) return route.getDepartureTime();
+		return departure;
+	}
+
+}
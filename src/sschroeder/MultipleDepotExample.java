@@ -67,17 +67,28 @@ public class MultipleDepotExample {
 		vraBuilder.addDefaultCostCalculators();
 		
 		double maxDriverTime = 70.;
+		double costPerDriverTimeUnit = 1.;
 		StateManager stateManager = new StateManager(vrp.getTransportCosts());
 		stateManager.updateLoadStates();
 //		stateManager.updateTimeWindowStates();
-		stateManager.addStateUpdater(new UpdateDepartureTimeAndPracticalTimeWindows(stateManager, vrp.getTransportCosts(), maxDriverTime));
+		ActivityDoubleStates latestActivityStarts = new ActivityDoubleStates();
+		stateManager.addListener(latestActivityStarts);
+		UpdateDepartureTimeAndPracticalTimeWindows latestStartUpdater = new UpdateDepartureTimeAndPracticalTimeWindows(stateManager, latestActivityStarts, vrp.getTransportCosts());
+		latestStartUpdater.setIncremental(true);
+		stateManager.addStateUpdater(latestStartUpdater);
+		ActivityDoubleStates cumulatedWaitingTimes = new ActivityDoubleStates();
+		stateManager.addListener(cumulatedWaitingTimes);
+		stateManager.addStateUpdater(new UpdateCumulatedWaitingTimes(stateManager, vrp.getTransportCosts(), cumulatedWaitingTimes));
+		stateManager.addStateUpdater(new UpdateDepartureTime(stateManager, vrp.getTransportCosts()));
 			
 		ConstraintManager constraintManager = new ConstraintManager(vrp, stateManager);
 		constraintManager.addLoadConstraint();
 //		constraintManager.addTimeWindowConstraint();
-		constraintManager.addConstraint(new TimeWindowConstraintWithDriverTime(stateManager, vrp.getTransportCosts(), maxDriverTime),Priority.CRITICAL);
+		constraintManager.addConstraint(new TimeWindowConstraintWithDriverTime(stateManager, latestActivityStarts, cumulatedWaitingTimes, vrp.getTransportCosts(), maxDriverTime),Priority.CRITICAL);
 		
 		vraBuilder.setStateAndConstraintManager(stateManager, constraintManager);
+		//costs each solution with its optimized departure times, i.e. as it is dispatched
+		vraBuilder.setObjectiveFunction(new DriverTimeObjective(stateManager, costPerDriverTimeUnit));
 		
 		VehicleRoutingAlgorithm algorithm = vraBuilder.build();
 		algorithm.setNuOfIterations(2000);
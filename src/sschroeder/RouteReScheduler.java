@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either 
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public 
+ * License along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package sschroeder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import jsprit.core.algorithm.state.UpdateActivityTimes;
+import jsprit.core.problem.cost.TransportTime;
+import jsprit.core.problem.solution.route.RouteActivityVisitor;
+import jsprit.core.problem.solution.route.VehicleRoute;
+
+/**
+ * Re-schedules departure times of many routes such that waiting times at their first activities are avoided, and updates their
+ * activity times accordingly.
+ * 
+ * <p>The departure time is determined with {@link UpdateDepartureTime#getDepartureTime(VehicleRoute, jsprit.core.problem.cost.BackwardTransportTime)}, 
+ * i.e. with a backward transport time lookup from the first activity. It therefore does not rely on the current activity times of the routes 
+ * and also works with time-dependent transportTimes.
+ * 
+ * <p>Routes are split into one batch per thread. Each batch is processed by a single route visitor, thus visitors are reused for
+ * all routes of a batch instead of being created per route. The transportTimes must be thread-safe for reading.
+ * 
+ * @author schroeder
+ *
+ */
+public class RouteReScheduler {
+	
+	private final TransportTime transportTimes;
+	
+	private final int nuOfThreads;
+	
+	public RouteReScheduler(TransportTime transportTimes, int nuOfThreads) {
+		super();
+		if(nuOfThreads < 1) throw new IllegalArgumentException("nuOfThreads must be at least 1");
+		this.transportTimes = transportTimes;
+		this.nuOfThreads = nuOfThreads;
+	}
+	
+	/**
+	 * Re-schedules all non-empty routes and blocks until all of them are done.
+	 * 
+	 * @param routes
+	 * @throws InterruptedException
+	 * @throws ExecutionException
+	 */
+	public void reSchedule(Collection<VehicleRoute> routes) throws InterruptedException, ExecutionException {
+		final List<VehicleRoute> routeList = new ArrayList<VehicleRoute>(routes.size());
+		for(VehicleRoute route : routes){
+			if(!route.isEmpty()) routeList.add(route);
+		}
+		int nuOfBatches = Math.min(nuOfThreads, routeList.size());
+		if(nuOfBatches <= 1){
+			reSchedule(routeList, 0, routeList.size());
+			return;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(nuOfBatches);
+		List<Future<Object>> futures = new ArrayList<Future<Object>>(nuOfBatches);
+		try{
+			for(int batch=0;batch<nuOfBatches;batch++){
+				final int from = (int) ((long) routeList.size() * batch / nuOfBatches);
+				final int to = (int) ((long) routeList.size() * (batch + 1) / nuOfBatches);
+				futures.add(executor.submit(new Callable<Object>() {
+
+					@Override
+					public Object call() throws Exception {
+						reSchedule(routeList, from, to);
+						return null;
+					}
+					
+				}));
+			}
+			for(Future<Object> future : futures) future.get();
+		}
+		finally{
+			for(Future<Object> future : futures) future.cancel(true);
+			executor.shutdownNow();
+		}
+	}
+
+	private void reSchedule(List<VehicleRoute> routes, int from, int to) {
+		RouteActivityVisitor routeVisitor = new RouteActivityVisitor();
+		routeVisitor.addActivityVisitor(new UpdateActivityTimes(transportTimes));
+		for(int i=from;i<to;i++){
+			VehicleRoute route = routes.get(i);
+			route.setVehicleAndDepartureTime(route.getVehicle(), UpdateDepartureTime.getDepartureTime(route, transportTimes));
+			routeVisitor.visit(route);
+		}
+	}
+
+}
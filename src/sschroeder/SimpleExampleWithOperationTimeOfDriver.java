@@ -80,15 +80,26 @@ public class SimpleExampleWithOperationTimeOfDriver {
 		vraBuilder.addDefaultCostCalculators();
 		
 		double maxDriverTime = 21.;
+		double costPerDriverTimeUnit = 1.;
 		StateManager stateManager = new StateManager(problem.getTransportCosts());
 		stateManager.updateLoadStates();
-		stateManager.addStateUpdater(new UpdateDepartureTimeAndPracticalTimeWindows(stateManager, problem.getTransportCosts(), maxDriverTime));
+		ActivityDoubleStates latestActivityStarts = new ActivityDoubleStates();
+		stateManager.addListener(latestActivityStarts);
+		UpdateDepartureTimeAndPracticalTimeWindows latestStartUpdater = new UpdateDepartureTimeAndPracticalTimeWindows(stateManager, latestActivityStarts, problem.getTransportCosts());
+		latestStartUpdater.setIncremental(true);
+		stateManager.addStateUpdater(latestStartUpdater);
+		ActivityDoubleStates cumulatedWaitingTimes = new ActivityDoubleStates();
+		stateManager.addListener(cumulatedWaitingTimes);
+		stateManager.addStateUpdater(new UpdateCumulatedWaitingTimes(stateManager, problem.getTransportCosts(), cumulatedWaitingTimes));
+		stateManager.addStateUpdater(new UpdateDepartureTime(stateManager, problem.getTransportCosts()));
 			
 		ConstraintManager constraintManager = new ConstraintManager(problem, stateManager);
 		constraintManager.addLoadConstraint();
-		constraintManager.addConstraint(new TimeWindowConstraintWithDriverTime(stateManager, problem.getTransportCosts(), maxDriverTime),Priority.CRITICAL);
+		constraintManager.addConstraint(new TimeWindowConstraintWithDriverTime(stateManager, latestActivityStarts, cumulatedWaitingTimes, problem.getTransportCosts(), maxDriverTime),Priority.CRITICAL);
 		
 		vraBuilder.setStateAndConstraintManager(stateManager, constraintManager);
+		//costs each solution with its optimized departure times, i.e. as it is dispatched
+		vraBuilder.setObjectiveFunction(new DriverTimeObjective(stateManager, costPerDriverTimeUnit));
 		
 		VehicleRoutingAlgorithm algorithm = vraBuilder.build();
 		algorithm.addListener(new DepartureTimeReScheduler());
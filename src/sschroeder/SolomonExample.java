@@ -88,18 +88,29 @@ public class SolomonExample {
 		
 		//set max driver time
 		double maxDriverTime = 600.;
+		double costPerDriverTimeUnit = 1.;
 		StateManager stateManager = new StateManager(problem.getTransportCosts());
 		//adds core load/capacity constraints
 		stateManager.updateLoadStates();
 		//replaces the default twUpdater and updates departureTime and practical time windows
-		stateManager.addStateUpdater(new UpdateDepartureTimeAndPracticalTimeWindows(stateManager, problem.getTransportCosts(), maxDriverTime));
+		ActivityDoubleStates latestActivityStarts = new ActivityDoubleStates();
+		stateManager.addListener(latestActivityStarts);
+		UpdateDepartureTimeAndPracticalTimeWindows latestStartUpdater = new UpdateDepartureTimeAndPracticalTimeWindows(stateManager, latestActivityStarts, problem.getTransportCosts());
+		latestStartUpdater.setIncremental(true);
+		stateManager.addStateUpdater(latestStartUpdater);
+		ActivityDoubleStates cumulatedWaitingTimes = new ActivityDoubleStates();
+		stateManager.addListener(cumulatedWaitingTimes);
+		stateManager.addStateUpdater(new UpdateCumulatedWaitingTimes(stateManager, problem.getTransportCosts(), cumulatedWaitingTimes));
+		stateManager.addStateUpdater(new UpdateDepartureTime(stateManager, problem.getTransportCosts()));
 			
 		ConstraintManager constraintManager = new ConstraintManager(problem, stateManager);
 		constraintManager.addLoadConstraint();
 		//replaces the default twConstraint to consider departureTime and driver's working hour as well
-		constraintManager.addConstraint(new TimeWindowConstraintWithDriverTime(stateManager, problem.getTransportCosts(), maxDriverTime),Priority.CRITICAL);
+		constraintManager.addConstraint(new TimeWindowConstraintWithDriverTime(stateManager, latestActivityStarts, cumulatedWaitingTimes, problem.getTransportCosts(), maxDriverTime),Priority.CRITICAL);
 		
 		vraBuilder.setStateAndConstraintManager(stateManager, constraintManager);
+		//costs each solution with its optimized departure times, i.e. as it is dispatched
+		vraBuilder.setObjectiveFunction(new DriverTimeObjective(stateManager, costPerDriverTimeUnit));
 		
 		VehicleRoutingAlgorithm algorithm = vraBuilder.build();
 		//finally re-schedules the departure time of vehicles to avoid waiting times at first activity
@@ -16,16 +16,16 @@
  ******************************************************************************/
 package sschroeder;
 
+import java.util.Arrays;
+
+import abe.DenseCostMatrix;
+import abe.SpeedProfileCosts;
 import jsprit.core.problem.VehicleRoutingProblem;
-import jsprit.core.problem.cost.AbstractForwardVehicleRoutingTransportCosts;
 import jsprit.core.problem.cost.VehicleRoutingTransportCosts;
-import jsprit.core.problem.driver.Driver;
 import jsprit.core.problem.vehicle.Vehicle;
 import jsprit.core.problem.vehicle.VehicleImpl;
 import jsprit.core.problem.vehicle.VehicleType;
 import jsprit.core.problem.vehicle.VehicleTypeImpl;
-import jsprit.core.problem.vehicle.VehicleTypeImpl.VehicleCostParams;
-import jsprit.core.util.VehicleRoutingTransportCostsMatrix;
 
 public class SpeedVariations {
 	
@@ -33,28 +33,11 @@ public class SpeedVariations {
 	
 	public static void main(String[] args) {
 		
-		VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(true);
+		DenseCostMatrix matrix = new DenseCostMatrix(true);
 		//base time
-		matrixBuilder.addTransportTime("from", "to", 100.);
-		final VehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
-		VehicleRoutingTransportCosts modifiedMatrix = new AbstractForwardVehicleRoutingTransportCosts() {
-			
-			@Override
-			public double getTransportTime(String fromId, String toId,double departureTime, Driver driver, Vehicle vehicle) {
-				if(vehicle.getType().getTypeId().equals("A")){
-					return matrix.getTransportTime(fromId, toId, departureTime, driver, vehicle)*1.1;
-				}
-				return matrix.getTransportTime(fromId, toId, departureTime, driver, vehicle);
-			}
-			
-			@Override
-			public double getTransportCost(String fromId, String toId, double departureTime, Driver driver, Vehicle vehicle) {
-				if(vehicle == null) return matrix.getDistance(fromId, toId);
-				VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
-				return costParams.perDistanceUnit*matrix.getDistance(fromId, toId) + 
-						costParams.perTimeUnit*getTransportTime(fromId, toId, departureTime, driver, vehicle);
-			}
-		};
+		matrix.put("from", "to", 0., 100.);
+		//vehicles of type A are 10% slower
+		SpeedProfileCosts.Builder costsBuilder = SpeedProfileCosts.Builder.newInstance(matrix).addProfile("slow", 1.1).setVehicleTypeProfile("A", "slow");
 		
 		VehicleType typeA = VehicleTypeImpl.Builder.newInstance("A").build();
 		VehicleType typeB = VehicleTypeImpl.Builder.newInstance("B").build();
@@ -62,6 +45,8 @@ public class SpeedVariations {
 		Vehicle vehOfTypeA = VehicleImpl.Builder.newInstance("ofTypeA").setType(typeA).setStartLocationId("start").build();
 		Vehicle vehOfTypeB = VehicleImpl.Builder.newInstance("ofTypeB").setType(typeB).setStartLocationId("start").build();
 		
+		VehicleRoutingTransportCosts modifiedMatrix = costsBuilder.build(Arrays.asList(vehOfTypeA, vehOfTypeB));
+		
 		System.out.println("tpTime of A: "+ modifiedMatrix.getTransportTime("from", "to", 0., null, vehOfTypeA));
 		System.out.println("tpTime of B: "+ modifiedMatrix.getTransportTime("from", "to", 0., null, vehOfTypeB));
 		assert modifiedMatrix.getTransportTime("from", "to", 0., null, vehOfTypeA) >= 110.*0.99 && modifiedMatrix.getTransportTime("from", "to", 0., null, vehOfTypeA) <= 110.*1.01 : "110 should be the correct value for vehicle " + vehOfTypeA;
@@ -21,12 +21,14 @@ import jsprit.core.problem.solution.route.state.StateFactory.StateId;
 
 public class StateIds {
 	
-	public static final StateId LATEST_ACTIVITY_START = StateFactory.createId("latest_start");
-	
 	public static final StateId DEPARTURE_AT_DEPOT = StateFactory.createId("departure");
 	
 	public static final StateId LATEST_ARR_AT_DEPOT = StateFactory.createId("latestArrTimeAtDepot");
 
+	public static final StateId LATEST_START_VEHICLE = StateFactory.createId("latestStartVehicle");
+
+	public static final StateId WAITING_TIME = StateFactory.createId("waitingTime");
+
 	public static final StateId ARRIVAL_AT_DEPOT = StateFactory.createId("arrTimeAtDepot");;
 
 }
@@ -27,47 +27,75 @@ import jsprit.core.util.CalculationUtils;
 
 
 /**
+	 * Checks time windows, the vehicle's latest arrival and the driver's operation time.
+	 * 
+	 * <p>The operation time of the driver is checked for any insertion position in constant time: a delay at nextAct is absorbed
+	 * by the waiting time after nextAct (total waiting time - cumulated waiting time at nextAct), the remainder delays the arrival 
+	 * at the end. The departure is the one that avoids waiting at the first activity, i.e. it only changes if newAct becomes the first 
+	 * activity.
 	 * 
 	 * @author stefan
 	 *
 	 */
 	class TimeWindowConstraintWithDriverTime implements HardActivityStateLevelConstraint {
-
+		
 		private RouteAndActivityStateGetter states;
 		
+		private ActivityDoubleStates latestActivityStarts;
+		
+		private ActivityDoubleStates cumulatedWaitingTimes;
+		
 		private VehicleRoutingTransportCosts routingCosts;
 		
 		private double maxDriverTime;
 		
-		public TimeWindowConstraintWithDriverTime(RouteAndActivityStateGetter states, VehicleRoutingTransportCosts routingCosts, double maxDriverTime) {
+		/*
+		 * bounds that only depend on the insertion context (i.e. route, new vehicle, new driver and departure time) and on the new 
+		 * activity. fulfilled(...) is called for each insertion position with the same context and new activity, thus they are 
+		 * calculated once per context and activity, and most infeasible positions are rejected with pure arithmetic.
+		 */
+		private static class Bounds {
+			
+			private JobInsertionContext context;
+			
+			private TourActivity activity;
+			
+			private double latestVehicleArrival;
+			
+			private double currentArrTimeAtEnd;
+			
+			private double vehicleDeparture;
+			
+			private double routeDeparture;
+			
+			private double totalWaitingTime;
+			
+		}
+		
+		/*
+		 * insertion positions might be evaluated concurrently (e.g. by jsprit's concurrent insertion), thus each thread caches its own bounds
+		 */
+		private final ThreadLocal<Bounds> bounds = new ThreadLocal<Bounds>(){
+			
+			@Override
+			protected Bounds initialValue() {
+				return new Bounds();
+			}
+			
+		};
+		
+		public TimeWindowConstraintWithDriverTime(RouteAndActivityStateGetter states, ActivityDoubleStates latestActivityStarts, ActivityDoubleStates cumulatedWaitingTimes, VehicleRoutingTransportCosts routingCosts, double maxDriverTime) {
 			super();
 			this.states = states;
+			this.latestActivityStarts = latestActivityStarts;
+			this.cumulatedWaitingTimes = cumulatedWaitingTimes;
 			this.routingCosts = routingCosts;
 			this.maxDriverTime=maxDriverTime;
 		}
-
+		
 		@Override
 		public ConstraintsStatus fulfilled(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime) {
-			
-//			double actualDeparture = getActualDeparture(iFacts,newAct);
-			double latest_arr_at_depot = getLatestArrAtDepot(iFacts,newAct);
-			
-			/*
-			 * if actualDeparture changes --> latestArr changes too
-			 * 
-			 * 
-			 * 
-			 */
-			double actualEnd = getCurrentArrTimeAtEnd(iFacts);
-			if(prevAct instanceof Start){
-				double newDepartureTime = getVehicleDeparture(iFacts, newAct);
-				if(actualEnd - newDepartureTime > maxDriverTime){
-					return ConstraintsStatus.NOT_FULFILLED;
-				}
-			}
-			
-			
-			double latestVehicleArrival = Math.min(iFacts.getNewVehicle().getLatestArrival(),latest_arr_at_depot);
+			Bounds bounds = getBounds(iFacts, newAct);
 			
 			/*
 			 * if latest arrival of vehicle (at its end) is smaller than earliest operation start times of activities,
@@ -76,9 +104,9 @@ import jsprit.core.util.CalculationUtils;
 			 *     |--- vehicle's operation time ---|
 			 *                        					|--- prevAct or newAct or nextAct ---|
 			 */
-			if(latestVehicleArrival < prevAct.getTheoreticalEarliestOperationStartTime() || 
-					latestVehicleArrival < newAct.getTheoreticalEarliestOperationStartTime() ||
-						latestVehicleArrival < nextAct.getTheoreticalEarliestOperationStartTime()){
+			if(bounds.latestVehicleArrival < prevAct.getTheoreticalEarliestOperationStartTime() || 
+					bounds.latestVehicleArrival < newAct.getTheoreticalEarliestOperationStartTime() ||
+						bounds.latestVehicleArrival < nextAct.getTheoreticalEarliestOperationStartTime()){
 				return ConstraintsStatus.NOT_FULFILLED_BREAK;
 			}
 			/*
@@ -93,10 +121,15 @@ import jsprit.core.util.CalculationUtils;
 			}
 			
 			/*
+			 * transport times are non-negative, thus the vehicle cannot arrive earlier than prevActDepTime
+			 * 
 			 *  |--- prevAct ---|
 			 *                                          |- earliest arrival of vehicle
 			 *                       |--- nextAct ---|
 			 */
+			if(prevActDepTime > nextAct.getTheoreticalLatestOperationStartTime()){
+				return ConstraintsStatus.NOT_FULFILLED_BREAK;
+			}
 			double arrTimeAtNextOnDirectRouteWithNewVehicle = prevActDepTime + routingCosts.getTransportTime(prevAct.getLocationId(), nextAct.getLocationId(), prevActDepTime, iFacts.getNewDriver(), iFacts.getNewVehicle());
 			if(arrTimeAtNextOnDirectRouteWithNewVehicle > nextAct.getTheoreticalLatestOperationStartTime()){
 				return ConstraintsStatus.NOT_FULFILLED_BREAK;
@@ -108,21 +141,28 @@ import jsprit.core.util.CalculationUtils;
 			if(newAct.getTheoreticalEarliestOperationStartTime() > nextAct.getTheoreticalLatestOperationStartTime()){
 				return ConstraintsStatus.NOT_FULFILLED;
 			}
+			double latestArrTimeAtNextAct = getLatestActStartOfNext(bounds, nextAct);
+			/*
+			 * the vehicle cannot arrive at newAct earlier than prevActDepTime (and at nextAct not earlier than at newAct)
+			 */
+			if(prevActDepTime > newAct.getTheoreticalLatestOperationStartTime() || prevActDepTime > latestArrTimeAtNextAct){
+				return ConstraintsStatus.NOT_FULFILLED;
+			}
 			//			log.info("check insertion of " + newAct + " between " + prevAct + " and " + nextAct + ". prevActDepTime=" + prevActDepTime);
 			double arrTimeAtNewAct = prevActDepTime + routingCosts.getTransportTime(prevAct.getLocationId(), newAct.getLocationId(), prevActDepTime, iFacts.getNewDriver(), iFacts.getNewVehicle());
 			double endTimeAtNewAct = CalculationUtils.getActivityEndTime(arrTimeAtNewAct, newAct);
-			double latestArrTimeAtNewAct = getLatestNewActStart(newAct,nextAct,iFacts,latestVehicleArrival,endTimeAtNewAct);
 			
 //			log.info(newAct + " arrTime=" + arrTimeAtNewAct);
 			
-			double arrTimeAtNextAct = endTimeAtNewAct + routingCosts.getTransportTime(newAct.getLocationId(), nextAct.getLocationId(), endTimeAtNewAct, iFacts.getNewDriver(), iFacts.getNewVehicle());
-			double latestArrTimeAtNextAct = getLatestActStartOfNext(nextAct,iFacts,latestVehicleArrival);
+			double tpTimeFromNewToNext = routingCosts.getTransportTime(newAct.getLocationId(), nextAct.getLocationId(), endTimeAtNewAct, iFacts.getNewDriver(), iFacts.getNewVehicle());
+			double arrTimeAtNextAct = endTimeAtNewAct + tpTimeFromNewToNext;
+			double latestArrTimeAtNewAct = Math.min(newAct.getTheoreticalLatestOperationStartTime(), latestArrTimeAtNextAct - tpTimeFromNewToNext);
 			/*
 			 *  |--- newAct ---|
 			 *                       		                 |--- vehicle's arrival @nextAct
 			 *        latest arrival of vehicle @nextAct ---|                     
 			 */
-			if(arrTimeAtNextAct > latestVehicleArrival){
+			if(arrTimeAtNextAct > bounds.latestVehicleArrival){
 				return ConstraintsStatus.NOT_FULFILLED_BREAK;
 			}
 			if(arrTimeAtNextAct > latestArrTimeAtNextAct){
@@ -133,7 +173,7 @@ import jsprit.core.util.CalculationUtils;
 			 *                       		                 |--- vehicle's arrival @newAct
 			 *        latest arrival of vehicle @newAct ---|                     
 			 */
-			if(arrTimeAtNewAct > latestVehicleArrival){
+			if(arrTimeAtNewAct > bounds.latestVehicleArrival){
 				return ConstraintsStatus.NOT_FULFILLED_BREAK;
 			}
 			if(arrTimeAtNewAct > latestArrTimeAtNewAct){
@@ -145,42 +185,66 @@ import jsprit.core.util.CalculationUtils;
 			if(arrTimeAtNextOnDirectRouteWithNewVehicle > latestArrTimeAtNextAct){
 				return ConstraintsStatus.NOT_FULFILLED_BREAK;
 			}
+			/*
+			 * driver's operation time, i.e. new arrival at end - departure
+			 */
+			double departure = prevAct instanceof Start ? bounds.vehicleDeparture : bounds.routeDeparture;
+			if(getNewArrTimeAtEnd(bounds, nextAct, arrTimeAtNextAct) - departure > maxDriverTime){
+				return ConstraintsStatus.NOT_FULFILLED;
+			}
 			return ConstraintsStatus.FULFILLED;
 		}
-
-		private double getCurrentArrTimeAtEnd(JobInsertionContext iFacts) {
-			return iFacts.getRoute().getEnd().getArrTime();
+		
+		private double getNewArrTimeAtEnd(Bounds bounds, TourActivity nextAct, double arrTimeAtNextAct) {
+			if(nextAct instanceof End){
+				return Math.max(bounds.currentArrTimeAtEnd, arrTimeAtNextAct);
+			}
+			double currentStartAtNextAct = Math.max(nextAct.getArrTime(), nextAct.getTheoreticalEarliestOperationStartTime());
+			double newStartAtNextAct = Math.max(arrTimeAtNextAct, nextAct.getTheoreticalEarliestOperationStartTime());
+			double pushForward = newStartAtNextAct - currentStartAtNextAct;
+			if(pushForward <= 0.) return bounds.currentArrTimeAtEnd;
+			double waitingTimeAfterNextAct = bounds.totalWaitingTime - cumulatedWaitingTimes.get(nextAct, bounds.totalWaitingTime);
+			return bounds.currentArrTimeAtEnd + Math.max(0., pushForward - waitingTimeAfterNextAct);
 		}
-
-		private double getLatestNewActStart(TourActivity newAct, TourActivity nextAct, JobInsertionContext iFacts, double latestVehicleArrival, double departureAtNewAct) {
-			double latestNextActStart = getLatestActStartOfNext(nextAct, iFacts, latestVehicleArrival);
-			double latestNewAct = latestNextActStart - routingCosts.getTransportTime(newAct.getLocationId(), nextAct.getLocationId(), 
-					departureAtNewAct, iFacts.getNewDriver(), iFacts.getNewVehicle());
-			return Math.min(newAct.getTheoreticalLatestOperationStartTime(), latestNewAct);
+		
+		private Bounds getBounds(JobInsertionContext iFacts, TourActivity newAct) {
+			Bounds bounds = this.bounds.get();
+			if(iFacts == bounds.context && newAct == bounds.activity) return bounds;
+			bounds.context = iFacts;
+			bounds.activity = newAct;
+			bounds.currentArrTimeAtEnd = iFacts.getRoute().getEnd().getArrTime();
+			Double waitingTime = states.getRouteState(iFacts.getRoute(), StateIds.WAITING_TIME, Double.class);
+			bounds.totalWaitingTime = waitingTime == null ? 0. : waitingTime;
+			Double departure = states.getRouteState(iFacts.getRoute(), StateIds.DEPARTURE_AT_DEPOT, Double.class);
+			bounds.routeDeparture = departure == null ? iFacts.getNewDepTime() : departure;
+			bounds.vehicleDeparture = getVehicleDeparture(iFacts, newAct);
+			/*
+			 * the departure is either the one of the route or (if newAct becomes the first activity) the one that avoids waiting at newAct, 
+			 * thus the vehicle cannot arrive anywhere later than the later of both plus the driver's operation time
+			 */
+			double latestArrivalOfDriver = Math.max(bounds.routeDeparture, bounds.vehicleDeparture) + maxDriverTime;
+			bounds.latestVehicleArrival = Math.min(Math.min(iFacts.getNewVehicle().getLatestArrival(), getLatestArrAtDepot(iFacts)), latestArrivalOfDriver);
+			return bounds;
 		}
-
-		private double getLatestActStartOfNext(TourActivity nextAct,JobInsertionContext iFacts, double latestVehicleArrival) {
+		
+		private double getLatestActStartOfNext(Bounds bounds, TourActivity nextAct) {
 			if(nextAct instanceof End){
-				return latestVehicleArrival;
-			}
-			if(states.getActivityState(nextAct, StateIds.LATEST_ACTIVITY_START, Double.class) != null){
-				return states.getActivityState(nextAct, StateIds.LATEST_ACTIVITY_START, Double.class);
-			}
-			else{
-				return nextAct.getTheoreticalLatestOperationStartTime();
+				return bounds.latestVehicleArrival;
 			}
+			return latestActivityStarts.get(nextAct, nextAct.getTheoreticalLatestOperationStartTime());
 		}
-
-		private double getLatestArrAtDepot(JobInsertionContext iFacts, TourActivity newActivity) {
-			if(states.getRouteState(iFacts.getRoute(), StateIds.LATEST_ARR_AT_DEPOT, Double.class) != null){
-				return states.getRouteState(iFacts.getRoute(), StateIds.LATEST_ARR_AT_DEPOT, Double.class);
+		
+		private double getLatestArrAtDepot(JobInsertionContext iFacts) {
+			Double latestArrAtDepot = states.getRouteState(iFacts.getRoute(), StateIds.LATEST_ARR_AT_DEPOT, Double.class);
+			if(latestArrAtDepot != null){
+				return latestArrAtDepot;
 			}
-			else return Math.min(iFacts.getNewVehicle().getLatestArrival(),getVehicleDeparture(iFacts,newActivity)+maxDriverTime);
+			else return iFacts.getNewVehicle().getLatestArrival();
 		}
-
+		
 		private double getVehicleDeparture(JobInsertionContext iFacts, TourActivity newActivity) {
 			double tpTime = routingCosts.getTransportTime(iFacts.getNewVehicle().getStartLocationId(), newActivity.getLocationId(), iFacts.getNewDepTime(), iFacts.getNewDriver(), iFacts.getNewVehicle());
 			double newDepTime = newActivity.getTheoreticalEarliestOperationStartTime() - tpTime;
 			return Math.max(iFacts.getNewDepTime(),newDepTime);
 		}
-	}
\ No newline at end of file
+	}
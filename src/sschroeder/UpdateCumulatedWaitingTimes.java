@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either 
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public 
+ * License along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package sschroeder;
+
+import jsprit.core.algorithm.state.StateManager;
+import jsprit.core.algorithm.state.StateUpdater;
+import jsprit.core.problem.cost.ForwardTransportTime;
+import jsprit.core.problem.solution.route.VehicleRoute;
+import jsprit.core.problem.solution.route.activity.ActivityVisitor;
+import jsprit.core.problem.solution.route.activity.TourActivity;
+import jsprit.core.util.ActivityTimeTracker;
+
+/**
+ * Updates and memorizes the waiting time cumulated up to (and including) each activity (in cumulatedWaitingTimes) and the total 
+ * waiting time of a route (as route state {@link StateIds#WAITING_TIME}). Thus the waiting time after an activity, i.e. the time that 
+ * absorbs a delay at this activity, is total waiting time - cumulated waiting time.
+ * 
+ * <p>Arrival times are tracked with an own {@link ActivityTimeTracker} (and not read from activities), thus it does not depend on whether
+ * the state manager runs it before or after jsprit's activity time updater.
+ * 
+ * @author schroeder
+ *
+ */
+class UpdateCumulatedWaitingTimes implements ActivityVisitor, StateUpdater {
+
+	private StateManager states;
+	
+	private ActivityDoubleStates cumulatedWaitingTimes;
+	
+	private ActivityTimeTracker timeTracker;
+	
+	private VehicleRoute route;
+	
+	private double cumulatedWaitingTime;
+	
+	public UpdateCumulatedWaitingTimes(StateManager states, ForwardTransportTime transportTime, ActivityDoubleStates cumulatedWaitingTimes) {
+		super();
+		this.states = states;
+		this.timeTracker = new ActivityTimeTracker(transportTime);
+		this.cumulatedWaitingTimes = cumulatedWaitingTimes;
+	}
+
+	@Override
+	public void begin(VehicleRoute route) {
+		this.route = route;
+		timeTracker.begin(route);
+		cumulatedWaitingTime = 0.;
+	}
+
+	@Override
+	public void visit(TourActivity activity) {
+		timeTracker.visit(activity);
+		cumulatedWaitingTime += Math.max(0., activity.getTheoreticalEarliestOperationStartTime() - timeTracker.getActArrTime());
+		cumulatedWaitingTimes.put(activity, cumulatedWaitingTime);
+	}
+
+	@Override
+	public void finish() {
+		timeTracker.finish();
+		states.putTypedRouteState(route, StateIds.WAITING_TIME, Double.class, cumulatedWaitingTime);
+	}
+
+}
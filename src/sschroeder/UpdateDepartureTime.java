@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either 
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public 
+ * License along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package sschroeder;
+
+import jsprit.core.algorithm.state.StateManager;
+import jsprit.core.algorithm.state.StateUpdater;
+import jsprit.core.problem.cost.BackwardTransportTime;
+import jsprit.core.problem.solution.route.VehicleRoute;
+import jsprit.core.problem.solution.route.activity.ActivityVisitor;
+import jsprit.core.problem.solution.route.activity.TourActivity;
+
+/**
+ * Updates and memorizes the departure time at the depot that avoids waiting at the first activity (as route state 
+ * {@link StateIds#DEPARTURE_AT_DEPOT}), i.e. actualDeparture = max(earliestDeparture, firstActivity.earliestOperationStart - tpTime(start,firstActivity)).
+ * 
+ * <p>The transport time from start to first activity is the backward transport time when arriving at the earliest operation start of 
+ * the first activity. Thus it neither depends on up-to-date arrival times (i.e. on whether it runs before or after jsprit's activity time 
+ * updater) nor on the departure time being the earliest one, and it is exact for time-dependent transport times as well (if they are FIFO).
+ * 
+ * @author schroeder
+ *
+ */
+class UpdateDepartureTime implements ActivityVisitor, StateUpdater {
+
+	/**
+	 * Returns the departure time that avoids waiting at the first activity of route.
+	 * 
+	 * @param route
+	 * @param transportTime
+	 * @return departure time
+	 */
+	static double getDepartureTime(VehicleRoute route, BackwardTransportTime transportTime){
+		double earliestDepartureTime = route.getDepartureTime();
+		if(route.isEmpty()) return earliestDepartureTime;
+		TourActivity firstActivity = route.getActivities().get(0);
+		double earliestStartAtFirst = firstActivity.getTheoreticalEarliestOperationStartTime();
+		double tpTime_startToFirst = transportTime.getBackwardTransportTime(route.getStart().getLocationId(), firstActivity.getLocationId(), 
+				earliestStartAtFirst, route.getDriver(), route.getVehicle());
+		return Math.max(earliestDepartureTime, earliestStartAtFirst - tpTime_startToFirst);
+	}
+	
+	private StateManager states;
+	
+	private BackwardTransportTime transportTime;
+	
+	private VehicleRoute route;
+	
+	public UpdateDepartureTime(StateManager states, BackwardTransportTime transportTime) {
+		super();
+		this.states = states;
+		this.transportTime = transportTime;
+	}
+
+	@Override
+	public void begin(VehicleRoute route) {
+		this.route = route;
+	}
+
+	@Override
+	public void visit(TourActivity activity) {}
+
+	@Override
+	public void finish() {
+		states.putTypedRouteState(route, StateIds.DEPARTURE_AT_DEPOT, Double.class, getDepartureTime(route, transportTime));
+	}
+
+}
@@ -22,9 +22,17 @@ import jsprit.core.problem.cost.VehicleRoutingTransportCosts;
 import jsprit.core.problem.solution.route.VehicleRoute;
 import jsprit.core.problem.solution.route.activity.ReverseActivityVisitor;
 import jsprit.core.problem.solution.route.activity.TourActivity;
+import jsprit.core.problem.vehicle.Vehicle;
 
 /**
- * Updates and memorizes latest operation start times at activities.
+ * Updates and memorizes latest operation start times at activities (in latestActivityStarts). Latest start times only consider time 
+ * windows and the vehicle's latest arrival, the driver's operation time is checked based on departure and waiting times 
+ * (see {@link UpdateDepartureTime} and {@link TimeWindowConstraintWithDriverTime}).
+ * 
+ * <p>In incremental mode, propagation stops at the first activity whose latest start does not change, since the latest start of an 
+ * activity only depends on the latest start of its successor. Activities without memorized latest start (i.e. newly inserted ones)
+ * restart propagation. If the vehicle of a route has changed, the route is updated completely. Note that latestActivityStarts must
+ * be cleared once ruin starts (i.e. register it with stateManager.addListener(...)), since removing activities is not tracked here.
  * 
  * @author schroeder
  *
@@ -41,45 +49,68 @@ class UpdateDepartureTimeAndPracticalTimeWindows implements ReverseActivityVisit
 	
 	private TourActivity prevAct;
 	
-	private double maxOperationTimeOfDriver;
+	private ActivityDoubleStates latestActivityStarts;
+	
+	private boolean incremental = false;
+	
+	private boolean propagate;
 	
-	public UpdateDepartureTimeAndPracticalTimeWindows(StateManager states, VehicleRoutingTransportCosts transportCosts, double maxDriverTime) {
+	private boolean propagateCompletely;
+	
+	public UpdateDepartureTimeAndPracticalTimeWindows(StateManager states, ActivityDoubleStates latestActivityStarts, VehicleRoutingTransportCosts transportCosts) {
 		super();
 		this.states = states;
+		this.latestActivityStarts = latestActivityStarts;
 		this.transportCosts = transportCosts;
-		maxOperationTimeOfDriver = maxDriverTime;
+	}
+	
+	/**
+	 * Sets whether latest start times are propagated backward only until they do not change anymore. Default is false.
+	 * 
+	 * @param incremental
+	 */
+	public void setIncremental(boolean incremental) {
+		this.incremental = incremental;
 	}
 
 	@Override
 	public void begin(VehicleRoute route) {
 		this.route = route;
-		double newDepartureTime = getNewDepartureTime(route);
-		double latestArrAtDepot = Math.min(route.getEnd().getTheoreticalLatestOperationStartTime(),newDepartureTime+maxOperationTimeOfDriver);
+		double latestArrAtDepot = route.getEnd().getTheoreticalLatestOperationStartTime();
 		states.putTypedRouteState(route, StateIds.LATEST_ARR_AT_DEPOT, Double.class, latestArrAtDepot);
 		latestArrTimeAtPrevAct = latestArrAtDepot;
 		prevAct = route.getEnd();
+		propagate = true;
+		propagateCompletely = !incremental;
+		if(incremental && states.getRouteState(route, StateIds.LATEST_START_VEHICLE, Vehicle.class) != route.getVehicle()){
+			states.putTypedRouteState(route, StateIds.LATEST_START_VEHICLE, Vehicle.class, route.getVehicle());
+			propagateCompletely = true;
+		}
 	}
 
 	@Override
 	public void visit(TourActivity activity) {
+		double memorizedLatestStart = propagateCompletely ? Double.NaN : latestActivityStarts.get(activity, Double.NaN);
+		if(!propagate){
+			if(!Double.isNaN(memorizedLatestStart)){
+				latestArrTimeAtPrevAct = memorizedLatestStart;
+				prevAct = activity;
+				return;
+			}
+			//newly inserted activity
+			propagate = true;
+		}
 		double potentialLatestArrivalTimeAtCurrAct = latestArrTimeAtPrevAct - transportCosts.getBackwardTransportTime(activity.getLocationId(), prevAct.getLocationId(), latestArrTimeAtPrevAct, route.getDriver(),route.getVehicle()) - activity.getOperationTime();
 		double latestArrivalTime = Math.min(activity.getTheoreticalLatestOperationStartTime(), potentialLatestArrivalTimeAtCurrAct);
-		states.putTypedActivityState(activity, StateIds.LATEST_ACTIVITY_START, Double.class, latestArrivalTime);
+		if(latestArrivalTime == memorizedLatestStart){
+			propagate = false;
+		}
+		else latestActivityStarts.put(activity, latestArrivalTime);
 		latestArrTimeAtPrevAct = latestArrivalTime;
 		prevAct = activity;
 	}
 
 	@Override
 	public void finish() {}
-	
-	
-	public double getNewDepartureTime(VehicleRoute route){
-		double earliestDepartureTime = route.getDepartureTime();
-		TourActivity firstActivity = route.getActivities().get(0);
-		double tpTime_startToFirst = transportCosts.getTransportTime(route.getStart().getLocationId(), firstActivity.getLocationId(), 
-				earliestDepartureTime, null, route.getVehicle());
-		double newDepartureTime = Math.max(earliestDepartureTime, firstActivity.getTheoreticalEarliestOperationStartTime()-tpTime_startToFirst);
-		return newDepartureTime;
-	}
 
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either 
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public 
+ * License along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package stackoverflow;
+
+import jsprit.core.problem.constraint.SoftActivityConstraint;
+import jsprit.core.problem.misc.JobInsertionContext;
+import jsprit.core.problem.solution.route.activity.TourActivity;
+import jsprit.core.problem.solution.route.activity.TourActivity.JobActivity;
+
+/**
+ * Rewards inserting an activity directly behind the activity it should immediately follow (or directly before the activity that 
+ * should immediately follow it), and penalizes inserting an activity elsewhere or in between two activities that should be 
+ * served one after another.
+ * 
+ * @author schroeder
+ *
+ */
+public class ImmediatelyAfterConstraint implements SoftActivityConstraint {
+
+	private final JobRelations relations;
+	
+	private final JobIndex jobIndex;
+	
+	public ImmediatelyAfterConstraint(JobRelations relations) {
+		super();
+		this.relations = relations;
+		this.jobIndex = relations.getJobIndex();
+	}
+
+	@Override
+	public double getCosts(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime) {
+		int newJob = getJobIndex(newAct);
+		if(newJob < 0) return 0.;
+		int predecessorRelation = relations.getPredecessorRelation(newJob);
+		if(predecessorRelation >= 0){
+			if(relations.getFirstJob(predecessorRelation) == getJobIndex(prevAct)){
+				return -relations.getReward(predecessorRelation);
+			}
+			return relations.getPenalty(predecessorRelation);
+		}
+		int nextJob = getJobIndex(nextAct);
+		if(nextJob < 0) return 0.;
+		int nextJobsPredecessorRelation = relations.getPredecessorRelation(nextJob);
+		if(nextJobsPredecessorRelation >= 0){
+			if(relations.getFirstJob(nextJobsPredecessorRelation) == newJob){
+				return -relations.getReward(nextJobsPredecessorRelation);
+			}
+			return relations.getPenalty(nextJobsPredecessorRelation);
+		}
+		return 0.;
+	}
+
+	private int getJobIndex(TourActivity act) {
+		if(act instanceof JobActivity) return jobIndex.getIndex(((JobActivity) act).getJob());
+		return -1;
+	}
+
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either 
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public 
+ * License along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package stackoverflow;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import jsprit.core.problem.VehicleRoutingProblem;
+import jsprit.core.problem.job.Job;
+
+/**
+ * Dense index [0..nuOfJobs-1] of the jobs of a problem. 
+ * 
+ * <p>Jobs are looked up by identity, i.e. without hashing their id strings, thus it can be used in hot paths.
+ * 
+ * @author schroeder
+ *
+ */
+public class JobIndex {
+	
+	private final Job[] jobs;
+	
+	private final Map<Job,Integer> indices = new IdentityHashMap<Job,Integer>();
+	
+	private final Map<String,Integer> indicesById = new HashMap<String,Integer>();
+	
+	public JobIndex(VehicleRoutingProblem vrp) {
+		super();
+		jobs = new Job[vrp.getJobs().size()];
+		int index = 0;
+		for(Job job : vrp.getJobs().values()){
+			jobs[index] = job;
+			indices.put(job, index);
+			indicesById.put(job.getId(), index);
+			index++;
+		}
+	}
+	
+	public int getNuOfJobs(){
+		return jobs.length;
+	}
+	
+	/**
+	 * Returns the index of job, or -1 if job is not part of the problem.
+	 * 
+	 * @param job
+	 * @return index
+	 */
+	public int getIndex(Job job){
+		Integer index = indices.get(job);
+		if(index == null) return -1;
+		return index;
+	}
+	
+	/**
+	 * Returns the index of the job with jobId. This hashes jobId, thus use it for setting up rather than in hot paths.
+	 * 
+	 * @param jobId
+	 * @return index
+	 */
+	public int getIndex(String jobId){
+		Integer index = indicesById.get(jobId);
+		if(index == null) throw new IllegalArgumentException("job " + jobId + " does not exist");
+		return index;
+	}
+	
+	public Job getJob(int index){
+		return jobs[index];
+	}
+
+}
@@ -0,0 +1,293 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either 
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public 
+ * License along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package stackoverflow;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Table of relations between jobs, precompiled into arrays keyed by the dense index of a {@link JobIndex}.
+ * 
+ * <p>Relations are read from a file with lines
+ * <pre>
+ * #type;firstJobId;secondJobId;reward;penalty
+ * sameRoute;13;21;100;0
+ * precedence;21;13;100;0
+ * immediatelyAfter;21;13;500;500
+ * </pre>
+ * where sameRoute means that both jobs should be in the same route, precedence that first should be served before second (in the 
+ * same route), and immediatelyAfter that second should be served immediately after first. A relation that is fulfilled is rewarded
+ * with reward (i.e. costs of -reward), a relation that is not fulfilled is penalized with penalty.
+ * 
+ * <p>For each job, the relations it is part of are stored as adjacency list (int arrays), and the immediate predecessor/successor 
+ * a job requires are stored in int arrays, thus constraints only need a couple of array reads.
+ * 
+ * @author schroeder
+ *
+ */
+public class JobRelations {
+	
+	public static enum Type {
+		SAME_ROUTE("sameRoute"), PRECEDENCE("precedence"), IMMEDIATELY_AFTER("immediatelyAfter");
+		
+		private final String name;
+		
+		private Type(String name){
+			this.name = name;
+		}
+		
+		public static Type of(String name){
+			for(Type type : values()){
+				if(type.name.equals(name)) return type;
+			}
+			throw new IllegalArgumentException("relation type " + name + " is not supported. supported are sameRoute, precedence and immediatelyAfter");
+		}
+		
+	}
+	
+	/**
+	 * Reads relations from file.
+	 * 
+	 * @param filename
+	 * @param jobIndex
+	 * @return relations
+	 * @throws IOException
+	 */
+	public static JobRelations read(String filename, JobIndex jobIndex) throws IOException{
+		Builder builder = new Builder(jobIndex);
+		BufferedReader reader = new BufferedReader(new FileReader(new File(filename)));
+		try{
+			String line;
+			int lineNumber = 0;
+			while((line = reader.readLine()) != null){
+				lineNumber++;
+				String cleanedLine = line.trim();
+				if(cleanedLine.isEmpty() || cleanedLine.startsWith("#")) continue;
+				String[] tokens = cleanedLine.split(";");
+				if(tokens.length != 5) throw new IllegalStateException("line " + lineNumber + " of " + filename + " must be type;firstJobId;secondJobId;reward;penalty");
+				builder.addRelation(Type.of(tokens[0].trim()), tokens[1].trim(), tokens[2].trim(), Double.parseDouble(tokens[3].trim()), Double.parseDouble(tokens[4].trim()));
+			}
+		}
+		finally{
+			reader.close();
+		}
+		return builder.build();
+	}
+	
+	public static class Builder {
+		
+		private final JobIndex jobIndex;
+		
+		private List<Type> types = new ArrayList<Type>();
+		
+		private List<int[]> jobs = new ArrayList<int[]>();
+		
+		private List<double[]> rewardsAndPenalties = new ArrayList<double[]>();
+		
+		public Builder(JobIndex jobIndex) {
+			super();
+			this.jobIndex = jobIndex;
+		}
+		
+		public Builder addRelation(Type type, String firstJobId, String secondJobId, double reward, double penalty){
+			int first = jobIndex.getIndex(firstJobId);
+			int second = jobIndex.getIndex(secondJobId);
+			if(first == second) throw new IllegalArgumentException("job " + firstJobId + " cannot be related to itself");
+			types.add(type);
+			jobs.add(new int[]{ first, second });
+			rewardsAndPenalties.add(new double[]{ reward, penalty });
+			return this;
+		}
+		
+		public JobRelations build(){
+			return new JobRelations(this);
+		}
+		
+	}
+	
+	private final JobIndex jobIndex;
+	
+	private final Type[] types;
+	
+	private final int[] firstJobs;
+	
+	private final int[] secondJobs;
+	
+	private final double[] rewards;
+	
+	private final double[] penalties;
+	
+	/*
+	 * relations of job j are relationsOfJob[relationOffsets[j]..relationOffsets[j+1]-1]
+	 */
+	private final int[] relationOffsets;
+	
+	private final int[] relationsOfJob;
+	
+	/*
+	 * relation index of the immediatelyAfter relation where job j is the second (predecessor) or first (successor) job, or -1
+	 */
+	private final int[] predecessorRelation;
+	
+	private final int[] successorRelation;
+	
+	private final BitSet jobsWithRouteRelations;
+	
+	private JobRelations(Builder builder){
+		this.jobIndex = builder.jobIndex;
+		int nuOfRelations = builder.types.size();
+		int nuOfJobs = jobIndex.getNuOfJobs();
+		types = builder.types.toArray(new Type[nuOfRelations]);
+		firstJobs = new int[nuOfRelations];
+		secondJobs = new int[nuOfRelations];
+		rewards = new double[nuOfRelations];
+		penalties = new double[nuOfRelations];
+		predecessorRelation = new int[nuOfJobs];
+		successorRelation = new int[nuOfJobs];
+		Arrays.fill(predecessorRelation, -1);
+		Arrays.fill(successorRelation, -1);
+		jobsWithRouteRelations = new BitSet(nuOfJobs);
+		relationOffsets = new int[nuOfJobs+1];
+		for(int r=0;r<nuOfRelations;r++){
+			firstJobs[r] = builder.jobs.get(r)[0];
+			secondJobs[r] = builder.jobs.get(r)[1];
+			rewards[r] = builder.rewardsAndPenalties.get(r)[0];
+			penalties[r] = builder.rewardsAndPenalties.get(r)[1];
+			relationOffsets[firstJobs[r]+1]++;
+			relationOffsets[secondJobs[r]+1]++;
+			if(types[r] == Type.IMMEDIATELY_AFTER){
+				if(predecessorRelation[secondJobs[r]] >= 0 || successorRelation[firstJobs[r]] >= 0){
+					throw new IllegalArgumentException("a job can have only one immediate predecessor and one immediate successor");
+				}
+				predecessorRelation[secondJobs[r]] = r;
+				successorRelation[firstJobs[r]] = r;
+			}
+			else{
+				jobsWithRouteRelations.set(firstJobs[r]);
+				jobsWithRouteRelations.set(secondJobs[r]);
+			}
+		}
+		for(int j=0;j<nuOfJobs;j++){
+			relationOffsets[j+1] += relationOffsets[j];
+		}
+		relationsOfJob = new int[relationOffsets[nuOfJobs]];
+		int[] next = Arrays.copyOf(relationOffsets, nuOfJobs);
+		for(int r=0;r<nuOfRelations;r++){
+			relationsOfJob[next[firstJobs[r]]++] = r;
+			relationsOfJob[next[secondJobs[r]]++] = r;
+		}
+	}
+
+	public JobIndex getJobIndex() {
+		return jobIndex;
+	}
+	
+	public int getNuOfRelations(){
+		return types.length;
+	}
+	
+	public Type getType(int relation){
+		return types[relation];
+	}
+	
+	public int getFirstJob(int relation){
+		return firstJobs[relation];
+	}
+	
+	public int getSecondJob(int relation){
+		return secondJobs[relation];
+	}
+	
+	public double getReward(int relation){
+		return rewards[relation];
+	}
+	
+	public double getPenalty(int relation){
+		return penalties[relation];
+	}
+	
+	/**
+	 * Returns the other job of relation.
+	 * 
+	 * @param relation
+	 * @param job
+	 * @return other job index
+	 */
+	public int getOtherJob(int relation, int job){
+		return firstJobs[relation] == job ? secondJobs[relation] : firstJobs[relation];
+	}
+	
+	/**
+	 * Relations of job are getRelation(i) with i in [getRelationsStart(job)..getRelationsEnd(job)-1].
+	 * 
+	 * @param job
+	 * @return start
+	 */
+	public int getRelationsStart(int job){
+		return relationOffsets[job];
+	}
+	
+	public int getRelationsEnd(int job){
+		return relationOffsets[job+1];
+	}
+	
+	public int getRelation(int i){
+		return relationsOfJob[i];
+	}
+	
+	public boolean hasRelations(int job){
+		return relationOffsets[job] != relationOffsets[job+1];
+	}
+	
+	/**
+	 * Returns true if job is part of a sameRoute or precedence relation.
+	 * 
+	 * @param job
+	 * @return true if job has route relations
+	 */
+	public boolean hasRouteRelations(int job){
+		return jobsWithRouteRelations.get(job);
+	}
+	
+	/**
+	 * Returns the immediatelyAfter relation in which job is the second job (i.e. that defines its predecessor), or -1.
+	 * 
+	 * @param job
+	 * @return relation index or -1
+	 */
+	public int getPredecessorRelation(int job){
+		return predecessorRelation[job];
+	}
+	
+	/**
+	 * Returns the immediatelyAfter relation in which job is the first job (i.e. that defines its successor), or -1.
+	 * 
+	 * @param job
+	 * @return relation index or -1
+	 */
+	public int getSuccessorRelation(int job){
+		return successorRelation[job];
+	}
+
+}
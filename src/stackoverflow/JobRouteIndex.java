@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either 
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public 
+ * License along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package stackoverflow;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import jsprit.core.algorithm.recreate.listener.InsertionStartsListener;
+import jsprit.core.algorithm.ruin.listener.RuinListener;
+import jsprit.core.algorithm.state.StateUpdater;
+import jsprit.core.problem.job.Job;
+import jsprit.core.problem.solution.route.VehicleRoute;
+import jsprit.core.problem.solution.route.activity.ActivityVisitor;
+import jsprit.core.problem.solution.route.activity.TourActivity;
+import jsprit.core.problem.solution.route.activity.TourActivity.JobActivity;
+
+/**
+ * Memorizes the route of each job in an array indexed by the dense index of a {@link JobIndex}. Thus "which-route" and "same-route"
+ * queries are O(1) for any job (or pair of jobs).
+ * 
+ * <p>It is updated whenever the stateManager visits a route (i.e. once insertion starts and after a job has been inserted), and once
+ * a job has been removed by a ruin strategy. Register it with stateManager.addStateUpdater(...).
+ * 
+ * @author schroeder
+ *
+ */
+public class JobRouteIndex implements StateUpdater, ActivityVisitor, InsertionStartsListener, RuinListener {
+	
+	private final JobIndex jobIndex;
+	
+	private final VehicleRoute[] routes;
+	
+	private VehicleRoute route;
+	
+	public JobRouteIndex(JobIndex jobIndex) {
+		super();
+		this.jobIndex = jobIndex;
+		this.routes = new VehicleRoute[jobIndex.getNuOfJobs()];
+	}
+	
+	public JobIndex getJobIndex() {
+		return jobIndex;
+	}
+
+	/**
+	 * Returns route of the job with jobIndex or null if it is not assigned.
+	 * 
+	 * @param jobIndex
+	 * @return route
+	 */
+	public VehicleRoute getRoute(int jobIndex){
+		return routes[jobIndex];
+	}
+	
+	/**
+	 * Returns route of job or null if it is not assigned.
+	 * 
+	 * @param job
+	 * @return route
+	 */
+	public VehicleRoute getRoute(Job job){
+		int index = jobIndex.getIndex(job);
+		if(index < 0) return null;
+		return routes[index];
+	}
+	
+	/**
+	 * Returns true if both jobs are assigned to the same route.
+	 * 
+	 * @param jobIndex1
+	 * @param jobIndex2
+	 * @return true if in same route
+	 */
+	public boolean isInSameRoute(int jobIndex1, int jobIndex2){
+		return routes[jobIndex1] != null && routes[jobIndex1] == routes[jobIndex2];
+	}
+	
+	@Override
+	public void begin(VehicleRoute route) {
+		this.route = route;
+	}
+
+	@Override
+	public void visit(TourActivity activity) {
+		if(activity instanceof JobActivity){
+			int index = jobIndex.getIndex(((JobActivity) activity).getJob());
+			if(index >= 0) routes[index] = route;
+		}
+	}
+
+	@Override
+	public void finish() {}
+
+	@Override
+	public void informInsertionStarts(Collection<VehicleRoute> vehicleRoutes, Collection<Job> unassignedJobs) {
+		for(Job job : unassignedJobs){
+			int index = jobIndex.getIndex(job);
+			if(index >= 0) routes[index] = null;
+		}
+	}
+
+	@Override
+	public void ruinStarts(Collection<VehicleRoute> routes) {}
+
+	@Override
+	public void ruinEnds(Collection<VehicleRoute> routes, Collection<Job> unassignedJobs) {}
+
+	@Override
+	public void removed(Job job, VehicleRoute fromRoute) {
+		int index = jobIndex.getIndex(job);
+		if(index >= 0) routes[index] = null;
+	}
+	
+	/**
+	 * Forgets all routes, e.g. before the index is used for another solution.
+	 */
+	public void clear(){
+		Arrays.fill(routes, null);
+	}
+
+}
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either 
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public 
+ * License along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package stackoverflow;
+
+import java.util.Arrays;
+
+import jsprit.core.algorithm.state.StateManager;
+import jsprit.core.algorithm.state.StateUpdater;
+import jsprit.core.problem.solution.route.VehicleRoute;
+import jsprit.core.problem.solution.route.activity.ActivityVisitor;
+import jsprit.core.problem.solution.route.activity.TourActivity;
+import jsprit.core.problem.solution.route.activity.TourActivity.JobActivity;
+
+/**
+ * Calculates rewards and penalties of the job relations of a route, i.e. each relation with at least one of its jobs in the route
+ * contributes -reward if it is fulfilled and +penalty if not.
+ * 
+ * <p>The costs are memorized as route state {@link StateIds#RELATED_JOBS_COSTS} whenever the stateManager visits a route, i.e. only
+ * routes that have changed are walked (once, memorizing the position of each job in an array indexed by job index) and the 
+ * objective function just sums up the memorized costs of its routes. Register it with stateManager.addStateUpdater(...).
+ * 
+ * @author schroeder
+ *
+ */
+public class RelatedJobsCosts implements StateUpdater, ActivityVisitor {
+	
+	private final StateManager stateManager;
+	
+	private final JobRelations relations;
+	
+	private final JobIndex jobIndex;
+	
+	private final int[] positions;
+	
+	private int[] jobsInRoute;
+	
+	private VehicleRoute route;
+	
+	private int nuOfJobsInRoute;
+	
+	private int position;
+	
+	public RelatedJobsCosts(StateManager stateManager, JobRelations relations) {
+		super();
+		this.stateManager = stateManager;
+		this.relations = relations;
+		this.jobIndex = relations.getJobIndex();
+		this.positions = new int[jobIndex.getNuOfJobs()];
+		this.jobsInRoute = new int[16];
+		Arrays.fill(positions, -1);
+	}
+	
+	/**
+	 * Returns the memorized relation costs of route.
+	 * 
+	 * @param route
+	 * @return costs
+	 */
+	public double getCosts(VehicleRoute route){
+		Double costs = stateManager.getRouteState(route, StateIds.RELATED_JOBS_COSTS, Double.class);
+		if(costs == null) return 0.;
+		return costs;
+	}
+	
+	@Override
+	public void begin(VehicleRoute route) {
+		this.route = route;
+		nuOfJobsInRoute = 0;
+		position = 0;
+	}
+
+	@Override
+	public void visit(TourActivity act) {
+		if(act instanceof JobActivity){
+			int job = jobIndex.getIndex(((JobActivity) act).getJob());
+			if(job >= 0 && relations.hasRelations(job)){
+				positions[job] = position;
+				if(nuOfJobsInRoute == jobsInRoute.length) jobsInRoute = Arrays.copyOf(jobsInRoute, 2*nuOfJobsInRoute);
+				jobsInRoute[nuOfJobsInRoute++] = job;
+			}
+		}
+		position++;
+	}
+
+	@Override
+	public void finish() {
+		double costs = 0.;
+		for(int j=0;j<nuOfJobsInRoute;j++){
+			int job = jobsInRoute[j];
+			for(int i=relations.getRelationsStart(job);i<relations.getRelationsEnd(job);i++){
+				int relation = relations.getRelation(i);
+				int first = relations.getFirstJob(relation);
+				int second = relations.getSecondJob(relation);
+				//count each relation only once, i.e. at its first job or at its second job if the first is not in route
+				if(job == second && positions[first] >= 0) continue;
+				if(isFulfilled(relations.getType(relation), positions[first], positions[second])){
+					costs -= relations.getReward(relation);
+				}
+				else costs += relations.getPenalty(relation);
+			}
+		}
+		for(int j=0;j<nuOfJobsInRoute;j++){
+			positions[jobsInRoute[j]] = -1;
+		}
+		stateManager.putTypedRouteState(route, StateIds.RELATED_JOBS_COSTS, Double.class, costs);
+	}
+
+	private boolean isFulfilled(JobRelations.Type type, int positionOfFirst, int positionOfSecond) {
+		if(positionOfFirst < 0 || positionOfSecond < 0) return false;
+		switch(type){
+			case SAME_ROUTE: return true;
+			case PRECEDENCE: return positionOfFirst < positionOfSecond;
+			case IMMEDIATELY_AFTER: return positionOfSecond == positionOfFirst + 1;
+		}
+		return false;
+	}
+
+}
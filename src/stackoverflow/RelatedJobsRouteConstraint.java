@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either 
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public 
+ * License along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package stackoverflow;
+
+import jsprit.core.problem.constraint.SoftRouteConstraint;
+import jsprit.core.problem.misc.JobInsertionContext;
+import jsprit.core.problem.solution.route.VehicleRoute;
+
+/**
+ * Rewards inserting a job into the route its sameRoute- and precedence-related jobs are already assigned to.
+ * 
+ * @author schroeder
+ *
+ */
+public class RelatedJobsRouteConstraint implements SoftRouteConstraint {
+
+	private final JobRelations relations;
+	
+	private final JobRouteIndex jobRouteIndex;
+	
+	public RelatedJobsRouteConstraint(JobRelations relations, JobRouteIndex jobRouteIndex) {
+		super();
+		this.relations = relations;
+		this.jobRouteIndex = jobRouteIndex;
+	}
+
+	@Override
+	public double getCosts(JobInsertionContext insertionContext) {
+		int job = relations.getJobIndex().getIndex(insertionContext.getJob());
+		if(job < 0 || !relations.hasRouteRelations(job)) return 0.;
+		VehicleRoute route = insertionContext.getRoute();
+		double costs = 0.;
+		for(int i=relations.getRelationsStart(job);i<relations.getRelationsEnd(job);i++){
+			int relation = relations.getRelation(i);
+			if(relations.getType(relation) == JobRelations.Type.IMMEDIATELY_AFTER) continue;
+			if(jobRouteIndex.getRoute(relations.getOtherJob(relation, job)) == route){
+				costs -= relations.getReward(relation);
+			}
+		}
+		return costs;
+	}
+
+}
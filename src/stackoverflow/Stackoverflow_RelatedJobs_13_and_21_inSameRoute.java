@@ -17,6 +17,7 @@
 
 package stackoverflow;
 
+import java.io.IOException;
 import java.util.Collection;
 
 import jsprit.analysis.toolbox.AlgorithmSearchProgressChartListener;
@@ -25,19 +26,12 @@ import jsprit.analysis.toolbox.Plotter.Label;
 import jsprit.core.algorithm.VehicleRoutingAlgorithm;
 import jsprit.core.algorithm.VehicleRoutingAlgorithmBuilder;
 import jsprit.core.algorithm.state.StateManager;
-import jsprit.core.algorithm.state.StateUpdater;
 import jsprit.core.problem.VehicleRoutingProblem;
 import jsprit.core.problem.constraint.ConstraintManager;
-import jsprit.core.problem.constraint.SoftRouteConstraint;
 import jsprit.core.problem.io.VrpXMLReader;
-import jsprit.core.problem.job.Job;
-import jsprit.core.problem.misc.JobInsertionContext;
 import jsprit.core.problem.solution.SolutionCostCalculator;
 import jsprit.core.problem.solution.VehicleRoutingProblemSolution;
 import jsprit.core.problem.solution.route.VehicleRoute;
-import jsprit.core.problem.solution.route.activity.ActivityVisitor;
-import jsprit.core.problem.solution.route.activity.TourActivity;
-import jsprit.core.problem.solution.route.activity.TourActivity.JobActivity;
 import jsprit.core.problem.solution.route.state.StateFactory;
 import jsprit.core.reporting.SolutionPrinter;
 import jsprit.core.reporting.SolutionPrinter.Print;
@@ -51,102 +45,7 @@ import jsprit.core.util.Solutions;
  */
 public class Stackoverflow_RelatedJobs_13_and_21_inSameRoute {
 	
-	static class JobsInRouteMemorizer implements StateUpdater, ActivityVisitor {
-
-		private StateManager stateManager;
-		private VehicleRoute route;
-		
-		
-		public JobsInRouteMemorizer(StateManager stateManager) {
-			super();
-			this.stateManager = stateManager;
-		}
-
-		@Override
-		public void begin(VehicleRoute route) {
-			this.route=route;
-		}
-
-		@Override
-		public void visit(TourActivity activity) {
-			if(activity instanceof JobActivity){
-				String jobId = ((JobActivity) activity).getJob().getId();
-				stateManager.putProblemState(StateFactory.createId(jobId), VehicleRoute.class, this.route);
-			}
-			
-		}
-
-		@Override
-		public void finish() {}
-		
-	}
-	
-	static class TwentyOneAndThirteenInSameRouteConstraint implements SoftRouteConstraint {
-
-		private StateManager stateManager;
-		
-		public TwentyOneAndThirteenInSameRouteConstraint(StateManager stateManager) {
-			super();
-			this.stateManager = stateManager;
-		}
-
-		@Override
-		public double getCosts(JobInsertionContext insertionContext) {
-			if(insertionContext.getJob().getId().equals("13")){
-				VehicleRoute route = stateManager.getProblemState(StateFactory.createId("21"), VehicleRoute.class);
-				if(route==null){
-					return 0.;
-				}
-				if(route!=null){
-					if(route==insertionContext.getRoute()){
-						return -100.;
-					}
-					else return 0.;
-				}
-			}
-			if(insertionContext.getJob().getId().equals("21")){
-				VehicleRoute route = stateManager.getProblemState(StateFactory.createId("13"), VehicleRoute.class);
-				if(route==null){
-					return 0.;
-				}
-				if(route!=null){
-					if(route==insertionContext.getRoute()){
-						return -100.;
-					}
-					else return 0.;
-				}
-			}
-			return 0;
-		}
-	}
-	
-	
-	
-	static class RewardAndPenaltiesThroughSoftConstraints {
-		
-		private VehicleRoutingProblem vrp;
-
-		public RewardAndPenaltiesThroughSoftConstraints(VehicleRoutingProblem vrp) {
-			super();
-			this.vrp = vrp;
-		}
-		
-		public double getCosts(VehicleRoute route) {
-			boolean serves13 = route.getTourActivities().servesJob(getJob("13"));
-			boolean serves21 = route.getTourActivities().servesJob(getJob("21"));
-			if(serves13 && serves21) { //then reward
-				return -100;
-			}
-			return 0;
-		}
-		
-		private Job getJob(String string) {
-			return vrp.getJobs().get(string);
-		}
-
-	}
-	
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
 		 
 			VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
 			
@@ -161,12 +60,15 @@ public class Stackoverflow_RelatedJobs_13_and_21_inSameRoute {
 			VehicleRoutingProblem vrp = vrpBuilder.build();
 			
 			final StateManager stateManager = new StateManager(vrp.getTransportCosts());
-			stateManager.addStateUpdater(new JobsInRouteMemorizer(stateManager));
+			JobRelations relations = JobRelations.read("input/stackoverflow/relations_13_and_21_inSameRoute.txt", new JobIndex(vrp));
+			JobRouteIndex jobRouteIndex = new JobRouteIndex(relations.getJobIndex());
+			stateManager.addStateUpdater(jobRouteIndex);
 			
 			ConstraintManager constraintManager = new ConstraintManager(vrp,stateManager);
-			constraintManager.addConstraint(new TwentyOneAndThirteenInSameRouteConstraint(stateManager));
+			constraintManager.addConstraint(new RelatedJobsRouteConstraint(relations, jobRouteIndex));
 			
-			final RewardAndPenaltiesThroughSoftConstraints softConstraintContributionToOverallObjective = new RewardAndPenaltiesThroughSoftConstraints(vrp);
+			final RelatedJobsCosts softConstraintContributionToOverallObjective = new RelatedJobsCosts(stateManager, relations);
+			stateManager.addStateUpdater(softConstraintContributionToOverallObjective);
 			SolutionCostCalculator costCalculator = new SolutionCostCalculator() {
 				
 				@Override
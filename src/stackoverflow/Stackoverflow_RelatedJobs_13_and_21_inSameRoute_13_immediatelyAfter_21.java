@@ -17,6 +17,7 @@
 
 package stackoverflow;
 
+import java.io.IOException;
 import java.util.Collection;
 
 import jsprit.analysis.toolbox.AlgorithmSearchProgressChartListener;
@@ -25,19 +26,12 @@ import jsprit.analysis.toolbox.Plotter.Label;
 import jsprit.core.algorithm.VehicleRoutingAlgorithm;
 import jsprit.core.algorithm.VehicleRoutingAlgorithmBuilder;
 import jsprit.core.algorithm.state.StateManager;
-import jsprit.core.algorithm.state.StateUpdater;
 import jsprit.core.problem.VehicleRoutingProblem;
 import jsprit.core.problem.constraint.ConstraintManager;
-import jsprit.core.problem.constraint.SoftActivityConstraint;
 import jsprit.core.problem.io.VrpXMLReader;
-import jsprit.core.problem.job.Job;
-import jsprit.core.problem.misc.JobInsertionContext;
 import jsprit.core.problem.solution.SolutionCostCalculator;
 import jsprit.core.problem.solution.VehicleRoutingProblemSolution;
 import jsprit.core.problem.solution.route.VehicleRoute;
-import jsprit.core.problem.solution.route.activity.ActivityVisitor;
-import jsprit.core.problem.solution.route.activity.TourActivity;
-import jsprit.core.problem.solution.route.activity.TourActivity.JobActivity;
 import jsprit.core.problem.solution.route.state.StateFactory;
 import jsprit.core.reporting.SolutionPrinter;
 import jsprit.core.reporting.SolutionPrinter.Print;
@@ -51,101 +45,7 @@ import jsprit.core.util.Solutions;
  */
 public class Stackoverflow_RelatedJobs_13_and_21_inSameRoute_13_immediatelyAfter_21 {
 	
-	static class JobsInRouteMemorizer implements StateUpdater, ActivityVisitor {
-
-		private StateManager stateManager;
-		private VehicleRoute route;
-		
-		
-		public JobsInRouteMemorizer(StateManager stateManager) {
-			super();
-			this.stateManager = stateManager;
-		}
-
-		@Override
-		public void begin(VehicleRoute route) {
-			this.route=route;
-		}
-
-		@Override
-		public void visit(TourActivity activity) {
-			if(activity instanceof JobActivity){
-				String jobId = ((JobActivity) activity).getJob().getId();
-				stateManager.putProblemState(StateFactory.createId(jobId), VehicleRoute.class, this.route);
-			}
-			
-		}
-
-		@Override
-		public void finish() {}
-		
-	}
-	
-	static class ThirteenImmediatelyAfterTwentyOne implements SoftActivityConstraint {
-
-		@Override
-		public double getCosts(JobInsertionContext iFacts,TourActivity prevAct, TourActivity newAct,TourActivity nextAct, double prevActDepTime) {
-			if(prevAct instanceof JobActivity && newAct instanceof JobActivity){
-				if(((JobActivity)prevAct).getJob().getId().equals("21") && ((JobActivity)newAct).getJob().getId().equals("13")){
-					return -500;
-				}
-				if(((JobActivity)newAct).getJob().getId().equals("13")){
-					return 500;
-				}
-			}
-			if(newAct instanceof JobActivity && nextAct instanceof JobActivity){
-				if(((JobActivity)newAct).getJob().getId().equals("21") && ((JobActivity)nextAct).getJob().getId().equals("13")){
-					return -500;
-				}
-				if(((JobActivity)nextAct).getJob().getId().equals("13")){
-					return 500;
-				}
-			}
-			return 0;
-		}
-		
-	}
-	
-	static class RewardAndPenaltiesThroughSoftConstraints {
-		private VehicleRoutingProblem vrp;
-
-		public RewardAndPenaltiesThroughSoftConstraints(VehicleRoutingProblem vrp) {
-			super();
-			this.vrp = vrp;
-		}
-		
-		public double getCosts(VehicleRoute route) {
-			boolean serves13 = route.getTourActivities().servesJob(getJob("13"));
-			boolean serves21 = route.getTourActivities().servesJob(getJob("21"));
-			if(serves13 && serves21) {
-				TourActivity lastAct = route.getStart();
-				for(TourActivity act : route.getActivities()){
-					if(act instanceof JobActivity && lastAct instanceof JobActivity){
-						if(((JobActivity)act).getJob().getId().equals("21")){
-							if(((JobActivity)lastAct).getJob().getId().equals("13")){
-								return -500;
-							}
-							else{
-								return +500;
-							}
-						}
-					}
-					lastAct=act;
-				}
-				return 0.;
-			}
-			if(serves13 && !serves21) return +500;
-			if(!serves13 && serves21) return +500;
-			return 0;
-		}
-		
-		private Job getJob(String string) {
-			return vrp.getJobs().get(string);
-		}
-
-	}
-	
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
 		 
 			VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
 			
@@ -160,12 +60,13 @@ public class Stackoverflow_RelatedJobs_13_and_21_inSameRoute_13_immediatelyAfter
 			VehicleRoutingProblem vrp = vrpBuilder.build();
 			
 			final StateManager stateManager = new StateManager(vrp.getTransportCosts());
-			stateManager.addStateUpdater(new JobsInRouteMemorizer(stateManager));
+			JobRelations relations = JobRelations.read("input/stackoverflow/relations_13_and_21_inSameRoute_13_immediatelyAfter_21.txt", new JobIndex(vrp));
 			
 			ConstraintManager constraintManager = new ConstraintManager(vrp,stateManager);
-			constraintManager.addConstraint(new ThirteenImmediatelyAfterTwentyOne());
+			constraintManager.addConstraint(new ImmediatelyAfterConstraint(relations));
 			
-			final RewardAndPenaltiesThroughSoftConstraints contrib = new RewardAndPenaltiesThroughSoftConstraints(vrp);
+			final RelatedJobsCosts contrib = new RelatedJobsCosts(stateManager, relations);
+			stateManager.addStateUpdater(contrib);
 			SolutionCostCalculator costCalculator = new SolutionCostCalculator() {
 				
 				@Override
@@ -0,0 +1,71 @@
+package abe;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class TestDenseCostMatrix {
+	
+	@Test
+	public void whenSymmetric_reverseRelationShouldBeAvailable(){
+		DenseCostMatrix matrix = new DenseCostMatrix(true);
+		matrix.put("0", "4", 10., 2.);
+		assertEquals(10., matrix.getDistance("4", "0"), 0.01);
+		assertEquals(2., matrix.getTransportTime("4", "0"), 0.01);
+	}
+	
+	@Test
+	public void whenAsymmetric_relationsShouldBeIndependent(){
+		DenseCostMatrix matrix = new DenseCostMatrix(false);
+		matrix.put("0", "4", 10., 2.);
+		matrix.put("4", "0", 20., 4.);
+		assertEquals(10., matrix.getDistance("0", "4"), 0.01);
+		assertEquals(20., matrix.getDistance("4", "0"), 0.01);
+		assertEquals(4., matrix.getTransportTime("4", "0"), 0.01);
+	}
+	
+	@Test
+	public void whenMatrixGrows_existingRelationsShouldBeKept(){
+		for(boolean symmetric : new boolean[]{true,false}){
+			DenseCostMatrix matrix = new DenseCostMatrix(symmetric);
+			for(int i=0;i<50;i++){
+				matrix.put("" + i, "" + (i+1), i, 2*i);
+			}
+			for(int i=0;i<50;i++){
+				assertEquals(i, matrix.getDistance("" + i, "" + (i+1)), 0.01);
+				assertEquals(2*i, matrix.getTransportTime("" + i, "" + (i+1)), 0.01);
+			}
+			assertEquals(0., matrix.getDistance("7", "7"), 0.01);
+			assertEquals(51, matrix.getNuOfLocations());
+		}
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void whenRelationIsMissing_throwException(){
+		DenseCostMatrix matrix = new DenseCostMatrix(true);
+		matrix.put("0", "4", 10., 2.);
+		matrix.put("5", "6", 10., 2.);
+		matrix.getDistance("0", "6");
+	}
+	
+	@Test
+	public void nuOfCellsShouldNotOverflow(){
+		assertEquals(65535, DenseCostMatrix.getMaxNuOfLocations(true));
+		assertEquals(46340, DenseCostMatrix.getMaxNuOfLocations(false));
+		assertEquals(2147450880L, DenseCostMatrix.getNuOfCells(65535, true));
+		assertEquals(10000000000L, DenseCostMatrix.getNuOfCells(100000, false));
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void whenAsymmetricMatrixCannotHoldLocations_throwException(){
+		DenseCostMatrix matrix = new DenseCostMatrix(false);
+		matrix.put(0, 46340, 10., 2.);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void whenSymmetricMatrixCannotHoldLocations_throwException(){
+		DenseCostMatrix matrix = new DenseCostMatrix(true);
+		matrix.put(65535, 0, 10., 2.);
+	}
+
+}
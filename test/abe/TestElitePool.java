@@ -0,0 +1,146 @@
+package abe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+
+import jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import jsprit.core.problem.solution.route.VehicleRoute;
+
+import org.junit.Test;
+
+public class TestElitePool {
+	
+	private VehicleRoutingProblemSolution createSolution(double cost){
+		return new VehicleRoutingProblemSolution(Collections.<VehicleRoute>emptyList(), cost);
+	}
+	
+	/*
+	 * costs of a full pool (get returns the best elite for empty slots)
+	 */
+	private List<Double> getCosts(ElitePool pool){
+		List<Double> costs = new ArrayList<Double>();
+		for(int i=0;i<pool.size();i++) costs.add(pool.get(i).getCost());
+		Collections.sort(costs);
+		return costs;
+	}
+	
+	@Test
+	public void whenPoolIsEmpty_itShouldReturnNull(){
+		ElitePool pool = new ElitePool(3);
+		assertNull(pool.getBest());
+		assertNull(pool.get(0));
+	}
+	
+	@Test
+	public void whenSlotIsEmpty_getShouldReturnBestElite(){
+		ElitePool pool = new ElitePool(3);
+		pool.offer(createSolution(20.));
+		pool.offer(createSolution(10.));
+		int nuOfBest = 0;
+		for(int i=0;i<pool.size();i++){
+			double cost = pool.get(i).getCost();
+			assertTrue(cost == 10. || cost == 20.);
+			if(cost == 10.) nuOfBest++;
+		}
+		assertEquals(2, nuOfBest);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void whenSizeIsZero_itShouldThrowException(){
+		new ElitePool(0);
+	}
+	
+	@Test
+	public void whenPoolIsFull_betterSolutionShouldReplaceWorstElite(){
+		ElitePool pool = new ElitePool(3);
+		assertTrue(pool.offer(createSolution(20.)));
+		assertTrue(pool.offer(createSolution(30.)));
+		assertTrue(pool.offer(createSolution(10.)));
+		assertFalse(pool.offer(createSolution(40.)));
+		assertEquals(Arrays.asList(10., 20., 30.), getCosts(pool));
+		assertTrue(pool.offer(createSolution(15.)));
+		assertEquals(Arrays.asList(10., 15., 20.), getCosts(pool));
+		assertTrue(pool.offer(createSolution(5.)));
+		assertEquals(Arrays.asList(5., 10., 15.), getCosts(pool));
+		assertEquals(5., pool.getBest().getCost(), 0.);
+	}
+	
+	@Test
+	public void whenSolutionHasSameCostsAsElite_itShouldBeRejected(){
+		ElitePool pool = new ElitePool(3);
+		assertTrue(pool.offer(createSolution(20.)));
+		assertFalse(pool.offer(createSolution(20.)));
+		assertTrue(pool.offer(createSolution(10.)));
+		assertTrue(pool.offer(createSolution(30.)));
+		assertFalse(pool.offer(createSolution(10.)));
+		assertFalse(pool.offer(createSolution(30.)));
+		assertEquals(Arrays.asList(10., 20., 30.), getCosts(pool));
+	}
+	
+	@Test
+	public void offeredAndReturnedSolutionsShouldBeCopies(){
+		ElitePool pool = new ElitePool(2);
+		VehicleRoutingProblemSolution solution = createSolution(10.);
+		pool.offer(solution);
+		solution.setCost(5.);
+		VehicleRoutingProblemSolution best = pool.getBest();
+		assertEquals(10., best.getCost(), 0.);
+		assertNotSame(best, pool.getBest());
+		assertNotSame(pool.get(0), pool.get(0));
+		best.setCost(1.);
+		assertEquals(10., pool.getBest().getCost(), 0.);
+		assertEquals(10., pool.get(1).getCost(), 0.);
+	}
+	
+	@Test
+	public void concurrentOffersShouldLeaveTheBestDistinctSolutions() throws InterruptedException{
+		final int poolSize = 8;
+		final int nuOfThreads = 8;
+		final ElitePool pool = new ElitePool(poolSize);
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<List<Double>> offeredCosts = new ArrayList<List<Double>>();
+		List<Thread> threads = new ArrayList<Thread>();
+		for(int t=0;t<nuOfThreads;t++){
+			//costs overlap between threads, thus the same costs are offered concurrently
+			final List<Double> costs = new ArrayList<Double>();
+			Random random = new Random(t);
+			for(int i=0;i<5000;i++) costs.add((double)random.nextInt(2000));
+			offeredCosts.add(costs);
+			Thread thread = new Thread(new Runnable(){
+				
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+					for(Double cost : costs) pool.offer(createSolution(cost));
+				}
+			
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		start.countDown();
+		for(Thread thread : threads) thread.join();
+		
+		TreeSet<Double> distinctCosts = new TreeSet<Double>();
+		for(List<Double> costs : offeredCosts) distinctCosts.addAll(costs);
+		List<Double> expected = new ArrayList<Double>(distinctCosts).subList(0, poolSize);
+		assertEquals(expected, getCosts(pool));
+	}
+
+}
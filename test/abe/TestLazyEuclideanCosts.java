@@ -0,0 +1,55 @@
+package abe;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import jsprit.core.util.Coordinate;
+
+import org.junit.Test;
+
+public class TestLazyEuclideanCosts {
+	
+	private Map<String,Coordinate> createLocations(int n){
+		Map<String,Coordinate> locations = new HashMap<String,Coordinate>();
+		for(int i=0;i<n;i++) locations.put("" + i, Coordinate.newInstance(i % 17, i / 17));
+		return locations;
+	}
+	
+	@Test
+	public void distancesShouldBeEuclideanEvenIfTilesAreEvicted(){
+		Map<String,Coordinate> locations = createLocations(300);
+		LazyEuclideanCosts costs = new LazyEuclideanCosts(locations, 0., 0., 0L, 1);
+		for(int i=0;i<300;i+=7){
+			for(int j=0;j<300;j+=11){
+				Coordinate from = locations.get("" + i);
+				Coordinate to = locations.get("" + j);
+				double expected = Math.sqrt(Math.pow(from.getX()-to.getX(), 2) + Math.pow(from.getY()-to.getY(), 2));
+				assertEquals(expected, costs.getDistance("" + i, "" + j), 0.0001);
+				assertEquals(expected, costs.getTransportTime("" + i, "" + j, 0., null, null), 0.0001);
+			}
+		}
+	}
+	
+	@Test
+	public void speedupRelationsShouldOnlyDependOnLocationIdsAndSeed(){
+		LazyEuclideanCosts costs = new LazyEuclideanCosts(createLocations(100), 0.5, 0.5, 42L, 4);
+		LazyEuclideanCosts otherCosts = new LazyEuclideanCosts(createLocations(100), 0.5, 0.5, 42L, 4);
+		int nuOfSpeedupRelations = 0;
+		for(int i=99;i>=0;i--){
+			for(int j=0;j<100;j++){
+				String from = "" + i;
+				String to = "" + j;
+				double time = costs.getTransportTime(from, to, 0., null, null);
+				assertEquals(time, otherCosts.getTransportTime(from, to, 0., null, null), 0.);
+				if(costs.isSpeedupRelation(costs.getLocationIndex().getIndex(from), costs.getLocationIndex().getIndex(to))){
+					assertEquals(0.5*costs.getDistance(from, to), time, 0.0001);
+					nuOfSpeedupRelations++;
+				}
+			}
+		}
+		assertEquals(5000., nuOfSpeedupRelations, 300.);
+	}
+
+}
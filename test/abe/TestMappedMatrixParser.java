@@ -0,0 +1,118 @@
+package abe;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TestMappedMatrixParser {
+	
+	private static class Rows implements MappedMatrixParser.RowHandler {
+		
+		private List<double[]> rows = new ArrayList<double[]>();
+		
+		@Override
+		public void handleRow(int fromIndex, int toIndex, double distance, double time) {
+			rows.add(new double[]{ fromIndex, toIndex, distance, time });
+		}
+	
+	}
+	
+	private String createFile(String content) throws IOException{
+		File file = File.createTempFile("matrix", ".txt");
+		file.deleteOnExit();
+		FileOutputStream out = new FileOutputStream(file);
+		try{
+			out.write(content.getBytes("UTF-8"));
+		}
+		finally{
+			out.close();
+		}
+		return file.getAbsolutePath();
+	}
+	
+	private Rows parse(String content, LocationIndex locationIndex, int windowSize) throws IOException{
+		MappedMatrixParser parser = new MappedMatrixParser(locationIndex);
+		parser.setWindowSize(windowSize);
+		Rows rows = new Rows();
+		parser.parse(createFile(content), rows);
+		assertEquals(rows.rows.size(), parser.getNuOfRows());
+		return rows;
+	}
+	
+	private void assertRow(Rows rows, int row, String fromId, String toId, double distance, double time, LocationIndex locationIndex){
+		double[] values = rows.rows.get(row);
+		assertEquals(fromId, locationIndex.getLocationId((int)values[0]));
+		assertEquals(toId, locationIndex.getLocationId((int)values[1]));
+		assertEquals(distance, values[2], 0.);
+		assertEquals(time, values[3], 0.);
+	}
+	
+	@Test
+	public void numbersShouldBeParsedWithCommaAndDotAsDecimalSeparator() throws IOException{
+		LocationIndex locationIndex = new LocationIndex();
+		Rows rows = parse("0;1;627,925894642352;124.896866825247\n1;2;-2,5;+0.25\n2;3;1e2;2,5E-1\n3;4; 7 ;,5\n", locationIndex, 1 << 20);
+		assertEquals(4, rows.rows.size());
+		assertRow(rows, 0, "0", "1", 627.925894642352, 124.896866825247, locationIndex);
+		assertRow(rows, 1, "1", "2", -2.5, 0.25, locationIndex);
+		assertRow(rows, 2, "2", "3", 100., 0.25, locationIndex);
+		assertRow(rows, 3, "3", "4", 7., 0.5, locationIndex);
+	}
+	
+	@Test
+	public void headerLinesShouldBeSkippedAndLastLineShouldBeParsedWithoutNewline() throws IOException{
+		LocationIndex locationIndex = new LocationIndex();
+		Rows rows = parse("Vehicle;Service;Distance;Time\r\n0;4;10,5;2,5\r\n\r\nVehicle;Service;Distance;Time\r\n4;0;11,5;3,5", locationIndex, 1 << 20);
+		assertEquals(2, rows.rows.size());
+		assertRow(rows, 0, "0", "4", 10.5, 2.5, locationIndex);
+		assertRow(rows, 1, "4", "0", 11.5, 3.5, locationIndex);
+		assertEquals(2, locationIndex.size());
+	}
+	
+	@Test
+	public void rowsCrossingWindowBoundariesShouldBeParsed() throws IOException{
+		StringBuilder content = new StringBuilder("Vehicle;Service;Distance;Time\r\n");
+		for(int i=0;i<500;i++) content.append(i).append(";").append(i+1).append(";").append(i).append(",25;").append(2*i).append(",5\r\n");
+		LocationIndex locationIndex = new LocationIndex();
+		Rows rows = parse(content.toString(), locationIndex, 37);
+		assertEquals(500, rows.rows.size());
+		for(int i=0;i<500;i++) assertRow(rows, i, "" + i, "" + (i+1), i+0.25, 2*i+0.5, locationIndex);
+		assertEquals(501, locationIndex.size());
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void whenLineIsLongerThanWindow_itShouldThrowException() throws IOException{
+		parse("0;1;627,925894642352;124,896866825247\n", new LocationIndex(), 16);
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void whenNumberCannotBeParsed_itShouldThrowException() throws IOException{
+		parse("0;1;1,5x;2\n", new LocationIndex(), 1 << 20);
+	}
+	
+	@Test
+	public void readMappedShouldReadSameMatrixAsRead() throws IOException{
+		MatrixReader reader = new MatrixReader();
+		reader.read("input/abe/Matrix.txt");
+		MatrixReader mappedReader = new MatrixReader();
+		mappedReader.readMapped("input/abe/Matrix.txt");
+		DenseCostMatrix matrix = reader.getCostMatrix();
+		DenseCostMatrix mappedMatrix = mappedReader.getCostMatrix();
+		assertEquals(matrix.getNuOfLocations(), mappedMatrix.getNuOfLocations());
+		for(int from=0;from<matrix.getNuOfLocations();from++){
+			assertEquals(matrix.getLocationIndex().getLocationId(from), mappedMatrix.getLocationIndex().getLocationId(from));
+			for(int to=0;to<matrix.getNuOfLocations();to++){
+				assertEquals(matrix.hasRelation(from, to), mappedMatrix.hasRelation(from, to));
+				if(!matrix.hasRelation(from, to)) continue;
+				assertEquals(matrix.getDistance(from, to), mappedMatrix.getDistance(from, to), 1e-9);
+				assertEquals(matrix.getTransportTime(from, to), mappedMatrix.getTransportTime(from, to), 1e-9);
+			}
+		}
+	}
+
+}
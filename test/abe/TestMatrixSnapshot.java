@@ -0,0 +1,78 @@
+package abe;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class TestMatrixSnapshot {
+	
+	private DenseCostMatrix createMatrix(boolean symmetric){
+		DenseCostMatrix matrix = new DenseCostMatrix(symmetric);
+		//5 locations, thus the capacity of the matrix (8) is larger than the number of locations
+		for(int i=0;i<5;i++){
+			matrix.put("loc" + i, "loc" + ((i+1) % 5), 10.+i, 1.+i);
+			if(!symmetric) matrix.put("loc" + ((i+1) % 5), "loc" + i, 20.+i, 2.+i);
+		}
+		return matrix;
+	}
+	
+	private String createFilename() throws IOException{
+		File file = File.createTempFile("matrix", ".snapshot");
+		file.deleteOnExit();
+		return file.getAbsolutePath();
+	}
+	
+	private void assertSameMatrix(DenseCostMatrix expected, DenseCostMatrix actual){
+		assertEquals(expected.isSymmetric(), actual.isSymmetric());
+		assertEquals(expected.getNuOfLocations(), actual.getNuOfLocations());
+		for(int from=0;from<expected.getNuOfLocations();from++){
+			assertEquals(expected.getLocationIndex().getLocationId(from), actual.getLocationIndex().getLocationId(from));
+			for(int to=0;to<expected.getNuOfLocations();to++){
+				assertEquals(expected.hasRelation(from, to), actual.hasRelation(from, to));
+				if(!expected.hasRelation(from, to)) continue;
+				assertEquals(expected.getDistance(from, to), actual.getDistance(from, to), 0.);
+				assertEquals(expected.getTransportTime(from, to), actual.getTransportTime(from, to), 0.);
+			}
+		}
+	}
+	
+	@Test
+	public void whenSnapshotIsReadAgain_matrixShouldBeTheSame() throws IOException{
+		for(boolean symmetric : new boolean[]{true,false}){
+			DenseCostMatrix matrix = createMatrix(symmetric);
+			String filename = createFilename();
+			MatrixSnapshot.write(matrix, filename);
+			assertSameMatrix(matrix, MatrixSnapshot.read(filename));
+		}
+	}
+	
+	@Test
+	public void whenSnapshotIsReadInSmallWindows_matrixShouldBeTheSame() throws IOException{
+		for(boolean symmetric : new boolean[]{true,false}){
+			DenseCostMatrix matrix = createMatrix(symmetric);
+			String filename = createFilename();
+			MatrixSnapshot.write(matrix, filename);
+			assertSameMatrix(matrix, MatrixSnapshot.read(filename, 16));
+		}
+	}
+	
+	@Test
+	public void writingSnapshotShouldNotChangeCellsOfMatrix() throws IOException{
+		DenseCostMatrix matrix = createMatrix(false);
+		int cell = matrix.getCell(3, 4);
+		int length = matrix.getDistances().length;
+		MatrixSnapshot.write(matrix, createFilename());
+		assertEquals(cell, matrix.getCell(3, 4));
+		assertEquals(length, matrix.getDistances().length);
+		assertEquals(23., matrix.getDistance("loc4", "loc3"), 0.);
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void whenFileIsNoSnapshot_itShouldThrowException() throws IOException{
+		MatrixSnapshot.read("input/abe/Matrix.txt");
+	}
+
+}
@@ -0,0 +1,100 @@
+package abe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import jsprit.core.problem.solution.route.VehicleRoute;
+
+import org.junit.Test;
+
+public class TestRouteMaxHeap {
+	
+	private List<VehicleRoute> createRoutes(int n){
+		List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+		for(int i=0;i<n;i++) routes.add(mock(VehicleRoute.class));
+		return routes;
+	}
+	
+	private void assertHeap(RouteMaxHeap heap, Map<VehicleRoute,Double> values){
+		double max = 0.;
+		double sum = 0.;
+		for(Map.Entry<VehicleRoute,Double> e : values.entrySet()){
+			max = Math.max(max, e.getValue());
+			sum += e.getValue();
+			assertTrue(heap.contains(e.getKey()));
+			assertEquals(e.getValue(), heap.getValue(e.getKey()), 0.);
+		}
+		assertEquals(values.size(), heap.size());
+		assertEquals(max, heap.getMax(), 0.);
+		assertEquals(sum, heap.getSum(), 1e-6);
+		if(values.isEmpty()) assertNull(heap.getMaxRoute());
+		else assertEquals(max, values.get(heap.getMaxRoute()), 0.);
+	}
+	
+	@Test
+	public void whenLongestRouteShrinks_maxShouldDecrease(){
+		List<VehicleRoute> routes = createRoutes(3);
+		RouteMaxHeap heap = new RouteMaxHeap();
+		heap.update(routes.get(0), 10.);
+		heap.update(routes.get(1), 30.);
+		heap.update(routes.get(2), 20.);
+		assertSame(routes.get(1), heap.getMaxRoute());
+		heap.update(routes.get(1), 5.);
+		assertEquals(20., heap.getMax(), 0.);
+		assertSame(routes.get(2), heap.getMaxRoute());
+		assertEquals(35., heap.getSum(), 0.);
+	}
+	
+	@Test
+	public void whenLongestRouteIsPruned_maxShouldDecrease(){
+		List<VehicleRoute> routes = createRoutes(3);
+		RouteMaxHeap heap = new RouteMaxHeap();
+		heap.update(routes.get(0), 10.);
+		heap.update(routes.get(1), 30.);
+		heap.update(routes.get(2), 20.);
+		heap.retainAll(routes.subList(0, 1));
+		assertEquals(10., heap.getMax(), 0.);
+		assertEquals(10., heap.getSum(), 0.);
+		assertEquals(1, heap.size());
+		assertFalse(heap.contains(routes.get(1)));
+		assertTrue(Double.isNaN(heap.getValue(routes.get(1))));
+		heap.remove(routes.get(0));
+		assertEquals(0., heap.getMax(), 0.);
+		assertNull(heap.getMaxRoute());
+	}
+	
+	@Test
+	public void randomIncreasesDecreasesAndRemovesShouldMatchBruteForce(){
+		List<VehicleRoute> routes = createRoutes(50);
+		RouteMaxHeap heap = new RouteMaxHeap();
+		Map<VehicleRoute,Double> values = new IdentityHashMap<VehicleRoute,Double>();
+		Random random = new Random(4711);
+		for(int i=0;i<5000;i++){
+			VehicleRoute route = routes.get(random.nextInt(routes.size()));
+			if(random.nextInt(4) == 0){
+				heap.remove(route);
+				values.remove(route);
+			}
+			else{
+				double value = Math.floor(random.nextDouble()*100.);
+				heap.update(route, value);
+				values.put(route, value);
+			}
+			assertHeap(heap, values);
+		}
+		heap.clear();
+		values.clear();
+		assertHeap(heap, values);
+	}
+
+}
@@ -0,0 +1,59 @@
+package abe;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class TestTimeDependentCostMatrix {
+	
+	private TimeDependentCostMatrix createMatrix(){
+		DenseCostMatrix matrix = new DenseCostMatrix(false);
+		matrix.put("0", "1", 10., 10.);
+		matrix.put("1", "0", 10., 10.);
+		//rush hour between 100 and 200
+		return TimeDependentCostMatrix.Builder.newInstance(matrix)
+				.addProfile("0", "1", new double[]{ 100., 150., 200. }, new double[]{ 10., 40., 10. }).build();
+	}
+	
+	@Test
+	public void whenDepartingBetweenBreakpoints_travelTimeShouldBeInterpolated(){
+		TimeDependentCostMatrix matrix = createMatrix();
+		assertEquals(10., matrix.getTransportTime("0", "1", 50., null, null), 0.01);
+		assertEquals(25., matrix.getTransportTime("0", "1", 125., null, null), 0.01);
+		assertEquals(40., matrix.getTransportTime("0", "1", 150., null, null), 0.01);
+		assertEquals(10., matrix.getTransportTime("0", "1", 300., null, null), 0.01);
+	}
+	
+	@Test
+	public void whenRelationHasNoProfile_travelTimeShouldBeConstant(){
+		TimeDependentCostMatrix matrix = createMatrix();
+		assertEquals(10., matrix.getTransportTime("1", "0", 150., null, null), 0.01);
+		assertEquals(10., matrix.getBackwardTransportTime("1", "0", 150., null, null), 0.01);
+	}
+	
+	@Test
+	public void backwardTravelTimeShouldBeConsistentWithForwardTravelTime(){
+		TimeDependentCostMatrix matrix = createMatrix();
+		for(double departure=0.;departure<=300.;departure+=7.){
+			double arrival = departure + matrix.getTransportTime("0", "1", departure, null, null);
+			assertEquals(arrival - departure, matrix.getBackwardTransportTime("0", "1", arrival, null, null), 0.0001);
+		}
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void whenProfileIsNotFIFO_itShouldThrowException(){
+		DenseCostMatrix matrix = new DenseCostMatrix(false);
+		matrix.put("0", "1", 10., 10.);
+		TimeDependentCostMatrix.Builder.newInstance(matrix).addProfile("0", "1", new double[]{ 100., 110. }, new double[]{ 50., 20. });
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void whenRelationOfSymmetricMatrixHasProfileInBothDirections_itShouldThrowException(){
+		DenseCostMatrix matrix = new DenseCostMatrix(true);
+		matrix.put("0", "1", 10., 10.);
+		TimeDependentCostMatrix.Builder.newInstance(matrix)
+			.addProfile("0", "1", new double[]{ 100., 200. }, new double[]{ 10., 20. })
+			.addProfile("1", "0", new double[]{ 100., 200. }, new double[]{ 30., 20. }).build();
+	}
+
+}
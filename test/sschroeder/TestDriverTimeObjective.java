@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either 
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public 
+ * License along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package sschroeder;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import jsprit.core.algorithm.state.StateManager;
+import jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import jsprit.core.problem.solution.route.VehicleRoute;
+import jsprit.core.problem.solution.route.activity.End;
+import jsprit.core.problem.solution.route.activity.Start;
+import jsprit.core.problem.solution.route.activity.TourActivity;
+import jsprit.core.problem.solution.route.state.StateFactory;
+import jsprit.core.problem.vehicle.Vehicle;
+import jsprit.core.problem.vehicle.VehicleType;
+import jsprit.core.problem.vehicle.VehicleTypeImpl.VehicleCostParams;
+import jsprit.core.util.Coordinate;
+import jsprit.core.util.CrowFlyCosts;
+import jsprit.core.util.Locations;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestDriverTimeObjective {
+	
+	VehicleRoutingTransportCosts routingCosts;
+	
+	StateManager states;
+	
+	VehicleRoute route;
+	
+	VehicleRoutingProblemSolution solution;
+	
+	/*
+	 * start(0,0) with earliest departure 0 -> (0,10) with earliest start 30, i.e. optimized departure is 20 -> end(0,0) arr=60
+	 */
+	@Before
+	public void doBefore(){
+		routingCosts = new CrowFlyCosts(new Locations(){
+			
+			@Override
+			public Coordinate getCoord(String id) {
+				return Coordinate.newInstance(Double.valueOf(id.split(",")[0].trim()), Double.valueOf(id.split(",")[1].trim()));
+			}
+			
+		});
+		states = new StateManager(routingCosts);
+		Start start = Start.newInstance("0,0", 0., 100.);
+		start.setEndTime(0.);
+		End end = End.newInstance("0,0", 0., 100.);
+		end.setArrTime(60.);
+		TourActivity act = mock(TourActivity.class);
+		when(act.getLocationId()).thenReturn("0,10");
+		when(act.getTheoreticalEarliestOperationStartTime()).thenReturn(30.);
+		
+		VehicleType type = mock(VehicleType.class);
+		when(type.getVehicleCostParams()).thenReturn(VehicleCostParams.newInstance(10., 0., 1.));
+		Vehicle vehicle = mock(Vehicle.class);
+		when(vehicle.getType()).thenReturn(type);
+		
+		route = mock(VehicleRoute.class);
+		when(route.getStart()).thenReturn(start);
+		when(route.getEnd()).thenReturn(end);
+		when(route.getActivities()).thenReturn(Arrays.asList(act));
+		when(route.getDepartureTime()).thenReturn(0.);
+		when(route.getVehicle()).thenReturn(vehicle);
+		
+		solution = mock(VehicleRoutingProblemSolution.class);
+		when(solution.getRoutes()).thenReturn(Arrays.asList(route));
+		states.putTypedRouteState(route, StateFactory.COSTS, Double.class, 20.);
+	}
+	
+	@Test
+	public void whenDepartureTimeIsOptimized_driverTimeShouldStartAtOptimizedDeparture(){
+		UpdateDepartureTime updater = new UpdateDepartureTime(states, routingCosts);
+		updater.begin(route);
+		updater.visit(route.getActivities().get(0));
+		updater.finish();
+		//fix + variable costs + 2 * (60 - 20)
+		assertEquals(110., new DriverTimeObjective(states, 2.).getCosts(solution), 0.01);
+	}
+	
+	@Test
+	public void whenDepartureTimeIsNotUpdated_driverTimeShouldStartAtEarliestDeparture(){
+		//fix + variable costs + 2 * (60 - 0)
+		assertEquals(150., new DriverTimeObjective(states, 2.).getCosts(solution), 0.01);
+	}
+	
+}
@@ -27,6 +27,8 @@ import jsprit.core.problem.driver.Driver;
 import jsprit.core.problem.job.Job;
 import jsprit.core.problem.misc.JobInsertionContext;
 import jsprit.core.problem.solution.route.VehicleRoute;
+import jsprit.core.problem.solution.route.activity.End;
+import jsprit.core.problem.solution.route.activity.Start;
 import jsprit.core.problem.solution.route.activity.TourActivity;
 import jsprit.core.problem.vehicle.Vehicle;
 import jsprit.core.util.Coordinate;
@@ -52,13 +54,17 @@ public class TestTimeWindowConstraintWithDriver {
 	
 	StateManager states;
 	
+	ActivityDoubleStates latestActivityStarts;
+	
 	@Before
 	public void doBefore(){
 		
 		job = mock(Job.class);
+		route = mock(VehicleRoute.class);
+		when(route.getEnd()).thenReturn(End.newInstance("0,0", 0., 100.));
 		newDriver = mock(Driver.class);
 		routingCosts = new CrowFlyCosts(new Locations(){
-
+			
 			@Override
 			public Coordinate getCoord(String id) {
 				return Coordinate.newInstance(Double.valueOf(id.split(",")[0].trim()), Double.valueOf(id.split(",")[1].trim()));
@@ -68,8 +74,9 @@ public class TestTimeWindowConstraintWithDriver {
 		prevAct = getMockedActivity("0,10",10.,20.);
 		nextAct = getMockedActivity("0,20",0.,20.);
 		states = new StateManager(routingCosts);
-		states.putTypedActivityState(prevAct, StateIds.LATEST_ACTIVITY_START, Double.class, 20.);
-		states.putTypedActivityState(nextAct, StateIds.LATEST_ACTIVITY_START, Double.class, 20.);
+		latestActivityStarts = new ActivityDoubleStates();
+		latestActivityStarts.put(prevAct, 20.);
+		latestActivityStarts.put(nextAct, 20.);
 		
 	}
 	
@@ -78,7 +85,7 @@ public class TestTimeWindowConstraintWithDriver {
 		Vehicle newVehicle = getMockedVehicle("0,0","0,0",0.,100.);
 		JobInsertionContext iContext = getInsertionContext(newVehicle,0.);
 		double maxDriverTime = 100;
-		TimeWindowConstraintWithDriverTime c = new TimeWindowConstraintWithDriverTime(states, routingCosts, maxDriverTime);
+		TimeWindowConstraintWithDriverTime c = new TimeWindowConstraintWithDriverTime(states, latestActivityStarts, new ActivityDoubleStates(), routingCosts, maxDriverTime);
 		TourActivity newAct = getMockedActivity("0,10",0.,9.);
 		
 		assertEquals(ConstraintsStatus.NOT_FULFILLED_BREAK,c.fulfilled(iContext, prevAct, newAct, nextAct, 10.));
@@ -89,7 +96,7 @@ public class TestTimeWindowConstraintWithDriver {
 		Vehicle newVehicle = getMockedVehicle("0,0","0,0",0.,100.);
 		JobInsertionContext iContext = getInsertionContext(newVehicle,0.);
 		double maxDriverTime = 100;
-		TimeWindowConstraintWithDriverTime c = new TimeWindowConstraintWithDriverTime(states, routingCosts, maxDriverTime);
+		TimeWindowConstraintWithDriverTime c = new TimeWindowConstraintWithDriverTime(states, latestActivityStarts, new ActivityDoubleStates(), routingCosts, maxDriverTime);
 		TourActivity newAct = getMockedActivity("0,10",25.,30.);
 		
 		assertEquals(ConstraintsStatus.NOT_FULFILLED,c.fulfilled(iContext, prevAct, newAct, nextAct, 10.));
@@ -99,9 +106,9 @@ public class TestTimeWindowConstraintWithDriver {
 	public void whenNewActNeedsToBeServedAfterLatestNextAct_returnNotFulfilled(){
 		Vehicle newVehicle = getMockedVehicle("0,0","0,0",0.,100.);
 		JobInsertionContext iContext = getInsertionContext(newVehicle,0.);
-		states.putTypedActivityState(nextAct, StateIds.LATEST_ACTIVITY_START, Double.class, 15.);
+		latestActivityStarts.put(nextAct, 15.);
 		double maxDriverTime = 100;
-		TimeWindowConstraintWithDriverTime c = new TimeWindowConstraintWithDriverTime(states, routingCosts, maxDriverTime);
+		TimeWindowConstraintWithDriverTime c = new TimeWindowConstraintWithDriverTime(states, latestActivityStarts, new ActivityDoubleStates(), routingCosts, maxDriverTime);
 		TourActivity newAct = getMockedActivity("0,10",10.,15.);
 		/*
 		 * arrTime@Next=20 > latestArrTime@Next=15
@@ -114,11 +121,11 @@ public class TestTimeWindowConstraintWithDriver {
 		Vehicle newVehicle = getMockedVehicle("0,0","0,0",0.,19.);
 		JobInsertionContext iContext = getInsertionContext(newVehicle,0.);
 		
-		states.putTypedActivityState(prevAct, StateIds.LATEST_ACTIVITY_START, Double.class, 9.);
-		states.putTypedActivityState(nextAct, StateIds.LATEST_ACTIVITY_START, Double.class, 19.);
+		latestActivityStarts.put(prevAct, 9.);
+		latestActivityStarts.put(nextAct, 19.);
 		
 		double maxDriverTime = 100;
-		TimeWindowConstraintWithDriverTime c = new TimeWindowConstraintWithDriverTime(states, routingCosts, maxDriverTime);
+		TimeWindowConstraintWithDriverTime c = new TimeWindowConstraintWithDriverTime(states, latestActivityStarts, new ActivityDoubleStates(), routingCosts, maxDriverTime);
 		TourActivity newAct = getMockedActivity("0,10",10.,15.);
 		
 		assertEquals(ConstraintsStatus.NOT_FULFILLED_BREAK,c.fulfilled(iContext, prevAct, newAct, nextAct, 10.));
@@ -129,38 +136,125 @@ public class TestTimeWindowConstraintWithDriver {
 		Vehicle newVehicle = getMockedVehicle("0,0","0,0",0.,100.);
 		JobInsertionContext iContext = getInsertionContext(newVehicle,0.);
 		
-		states.putTypedActivityState(prevAct, StateIds.LATEST_ACTIVITY_START, Double.class, 9.);
-		states.putTypedActivityState(nextAct, StateIds.LATEST_ACTIVITY_START, Double.class, 19.);
+		latestActivityStarts.put(prevAct, 9.);
+		latestActivityStarts.put(nextAct, 19.);
 		
 		double maxDriverTime = 19;
-		TimeWindowConstraintWithDriverTime c = new TimeWindowConstraintWithDriverTime(states, routingCosts, maxDriverTime);
+		TimeWindowConstraintWithDriverTime c = new TimeWindowConstraintWithDriverTime(states, latestActivityStarts, new ActivityDoubleStates(), routingCosts, maxDriverTime);
 		TourActivity newAct = getMockedActivity("0,10",10.,15.);
 		
 		assertEquals(ConstraintsStatus.NOT_FULFILLED_BREAK,c.fulfilled(iContext, prevAct, newAct, nextAct, 10.));
 	}
 	
 	@Test
-	public void whenMaxDriverTimeIsNotEnoughv2_returnNotFulfilledBreak(){
+	public void whenMaxDriverTimeIsNotEnoughv2_returnNotFulfilled(){
 		Vehicle newVehicle = getMockedVehicle("0,0","0,0",0.,100.);
 		JobInsertionContext iContext = getInsertionContext(newVehicle,0.);
 		
-		states.putTypedActivityState(prevAct, StateIds.LATEST_ACTIVITY_START, Double.class, 10.);
-		states.putTypedActivityState(nextAct, StateIds.LATEST_ACTIVITY_START, Double.class, 20.);
+		latestActivityStarts.put(prevAct, 10.);
+		latestActivityStarts.put(nextAct, 20.);
+		
+		/*
+		 * route departs at 0: start(0,0) -> prevAct(0,10) arr=10 -> nextAct(0,20) arr=20 -> end(0,0) arr=40, i.e. the driver's operation 
+		 * time of 30 is already exceeded. Arrival at nextAct itself is feasible, thus later insertion positions are not excluded.
+		 */
+		route.getEnd().setArrTime(40.);
+		when(nextAct.getArrTime()).thenReturn(20.);
 		
 		double maxDriverTime = 30;
-		TimeWindowConstraintWithDriverTime c = new TimeWindowConstraintWithDriverTime(states, routingCosts, maxDriverTime);
+		TimeWindowConstraintWithDriverTime c = new TimeWindowConstraintWithDriverTime(states, latestActivityStarts, new ActivityDoubleStates(), routingCosts, maxDriverTime);
 		TourActivity newAct = getMockedActivity("0,10",10.,15.);
 		
-		assertEquals(ConstraintsStatus.NOT_FULFILLED_BREAK,c.fulfilled(iContext, prevAct, newAct, nextAct, 10.));
+		assertEquals(ConstraintsStatus.NOT_FULFILLED,c.fulfilled(iContext, prevAct, newAct, nextAct, 10.));
 	}
 	
+	/*
+	 * route: start(0,0) -> nextAct(0,20) arr=20 -> end(0,0) arr=40
+	 * newAct(0,10) with tw [30,100] at first position: departure is shifted to 20 (to avoid waiting at newAct), and nextAct is pushed 
+	 * forward by 20, thus end arr=60 and driver time = 40 (but 60 if departure was not shifted)
+	 */
+	@Test
+	public void whenInsertingAtFirstPositionAndDriverTimeIsJustEnough_returnFulfilled(){
+		assertEquals(ConstraintsStatus.FULFILLED, fulfilledAtFirstPosition(40.));
+	}
 	
+	@Test
+	public void whenInsertingAtFirstPositionAndDriverTimeIsNotEnough_returnNotFulfilled(){
+		assertEquals(ConstraintsStatus.NOT_FULFILLED, fulfilledAtFirstPosition(39.));
+	}
+	
+	private ConstraintsStatus fulfilledAtFirstPosition(double maxDriverTime){
+		Vehicle newVehicle = getMockedVehicle("0,0","0,0",0.,100.);
+		JobInsertionContext iContext = getInsertionContext(newVehicle,0.);
+		route.getEnd().setArrTime(40.);
+		TourActivity start = Start.newInstance("0,0", 0., 100.);
+		TourActivity next = getMockedActivity("0,20", 0., 100.);
+		when(next.getArrTime()).thenReturn(20.);
+		latestActivityStarts.put(next, 100.);
+		
+		TimeWindowConstraintWithDriverTime c = new TimeWindowConstraintWithDriverTime(states, latestActivityStarts, new ActivityDoubleStates(), routingCosts, maxDriverTime);
+		TourActivity newAct = getMockedActivity("0,10",30.,100.);
+		return c.fulfilled(iContext, start, newAct, next, 0.);
+	}
+	
+	/*
+	 * route departs at 0: start(0,0) -> prevAct(0,10) arr=10 -> nextAct(0,20) arr=20 -> lastAct(0,30) arr=30, waits until earliestStartOfLast 
+	 * -> end(0,0) arr=earliestStartOfLast+30
+	 * newAct(10,15) between prevAct and nextAct pushes nextAct forward by 2*sqrt(125)-10=12.36, which is absorbed by the waiting time 
+	 * at lastAct (as far as it suffices)
+	 */
+	@Test
+	public void whenInsertingMidRouteAndWaitingTimeAbsorbsShift_driverTimeShouldNotChange(){
+		assertEquals(ConstraintsStatus.FULFILLED, fulfilledMidRoute(50., 80.));
+	}
+	
+	@Test
+	public void whenInsertingMidRouteAndDriverTimeIsAlreadyExceeded_returnNotFulfilled(){
+		assertEquals(ConstraintsStatus.NOT_FULFILLED, fulfilledMidRoute(50., 79.));
+	}
+	
+	@Test
+	public void whenInsertingMidRouteAndWaitingTimeAbsorbsShiftPartially_returnFulfilledIfRemainingShiftFits(){
+		//waiting time 10, i.e. end is delayed by 2.36 to 72.36
+		assertEquals(ConstraintsStatus.FULFILLED, fulfilledMidRoute(40., 72.4));
+	}
+	
+	@Test
+	public void whenInsertingMidRouteAndWaitingTimeAbsorbsShiftPartially_returnNotFulfilledIfRemainingShiftDoesNotFit(){
+		assertEquals(ConstraintsStatus.NOT_FULFILLED, fulfilledMidRoute(40., 72.3));
+	}
+	
+	private ConstraintsStatus fulfilledMidRoute(double earliestStartOfLast, double maxDriverTime){
+		Vehicle newVehicle = getMockedVehicle("0,0","0,0",0.,100.);
+		JobInsertionContext iContext = getInsertionContext(newVehicle,0.);
+		double waitingTime = earliestStartOfLast - 30.;
+		route.getEnd().setArrTime(earliestStartOfLast + 30.);
+		states.putTypedRouteState(route, StateIds.DEPARTURE_AT_DEPOT, Double.class, 0.);
+		states.putTypedRouteState(route, StateIds.WAITING_TIME, Double.class, waitingTime);
+		
+		TourActivity prev = getMockedActivity("0,10", 0., 100.);
+		when(prev.getArrTime()).thenReturn(10.);
+		TourActivity next = getMockedActivity("0,20", 0., 100.);
+		when(next.getArrTime()).thenReturn(20.);
+		TourActivity last = getMockedActivity("0,30", earliestStartOfLast, 100.);
+		when(last.getArrTime()).thenReturn(30.);
+		latestActivityStarts.put(prev, 100.);
+		latestActivityStarts.put(next, 100.);
+		latestActivityStarts.put(last, 100.);
+		ActivityDoubleStates cumulatedWaitingTimes = new ActivityDoubleStates();
+		cumulatedWaitingTimes.put(prev, 0.);
+		cumulatedWaitingTimes.put(next, 0.);
+		cumulatedWaitingTimes.put(last, waitingTime);
+		
+		TimeWindowConstraintWithDriverTime c = new TimeWindowConstraintWithDriverTime(states, latestActivityStarts, cumulatedWaitingTimes, routingCosts, maxDriverTime);
+		TourActivity newAct = getMockedActivity("10,15",0.,100.);
+		return c.fulfilled(iContext, prev, newAct, next, 10.);
+	}
 	
-
 	private JobInsertionContext getInsertionContext(Vehicle newVehicle, double newDepartureTime) {
 		return new JobInsertionContext(route, job, newVehicle, newDriver, newDepartureTime);
 	}
-
+	
 	private Vehicle getMockedVehicle(String startLoc, String endLoc, double earliestStart, double latestArr) {
 		Vehicle vehicle = mock(Vehicle.class);
 		when(vehicle.getStartLocationId()).thenReturn("0,0");
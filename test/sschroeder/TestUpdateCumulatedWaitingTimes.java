@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either 
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public 
+ * License along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package sschroeder;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import jsprit.core.algorithm.state.StateManager;
+import jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import jsprit.core.problem.solution.route.VehicleRoute;
+import jsprit.core.problem.solution.route.activity.End;
+import jsprit.core.problem.solution.route.activity.Start;
+import jsprit.core.problem.solution.route.activity.TourActivity;
+import jsprit.core.util.Coordinate;
+import jsprit.core.util.CrowFlyCosts;
+import jsprit.core.util.Locations;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestUpdateCumulatedWaitingTimes {
+	
+	VehicleRoutingTransportCosts routingCosts;
+	
+	StateManager states;
+	
+	VehicleRoute route;
+	
+	@Before
+	public void doBefore(){
+		routingCosts = new CrowFlyCosts(new Locations(){
+
+			@Override
+			public Coordinate getCoord(String id) {
+				return Coordinate.newInstance(Double.valueOf(id.split(",")[0].trim()), Double.valueOf(id.split(",")[1].trim()));
+			}
+			
+		});
+		states = new StateManager(routingCosts);
+		Start start = Start.newInstance("0,0", 0., 100.);
+		start.setEndTime(0.);
+		route = mock(VehicleRoute.class);
+		when(route.getStart()).thenReturn(start);
+		when(route.getEnd()).thenReturn(End.newInstance("0,0", 0., 100.));
+	}
+	
+	/*
+	 * start(0,0) departs at 0 -> (0,10) arr=10 -> (0,20) arr=20, waits until 40 -> (0,30) arr=50 -> (0,40) arr=60, waits until 70
+	 * 
+	 * arrival times of activities are not up-to-date (0.0), i.e. the updater must not rely on them
+	 */
+	@Test
+	public void cumulatedWaitingTimesShouldBeBasedOnTrackedArrivalTimes(){
+		ActivityDoubleStates cumulatedWaitingTimes = new ActivityDoubleStates();
+		UpdateCumulatedWaitingTimes updater = new UpdateCumulatedWaitingTimes(states, routingCosts, cumulatedWaitingTimes);
+		TourActivity act1 = getMockedActivity("0,10", 0.);
+		TourActivity act2 = getMockedActivity("0,20", 40.);
+		TourActivity act3 = getMockedActivity("0,30", 0.);
+		TourActivity act4 = getMockedActivity("0,40", 70.);
+		
+		updater.begin(route);
+		updater.visit(act1);
+		updater.visit(act2);
+		updater.visit(act3);
+		updater.visit(act4);
+		updater.finish();
+		
+		assertEquals(0., cumulatedWaitingTimes.get(act1, Double.NaN), 0.01);
+		assertEquals(20., cumulatedWaitingTimes.get(act2, Double.NaN), 0.01);
+		assertEquals(20., cumulatedWaitingTimes.get(act3, Double.NaN), 0.01);
+		assertEquals(30., cumulatedWaitingTimes.get(act4, Double.NaN), 0.01);
+		assertEquals(30., states.getRouteState(route, StateIds.WAITING_TIME, Double.class), 0.01);
+	}
+	
+	private TourActivity getMockedActivity(String locationId, double earliestStart){
+		TourActivity act = mock(TourActivity.class);
+		when(act.getLocationId()).thenReturn(locationId);
+		when(act.getTheoreticalEarliestOperationStartTime()).thenReturn(earliestStart);
+		when(act.getTheoreticalLatestOperationStartTime()).thenReturn(100.);
+		return act;
+	}
+
+}
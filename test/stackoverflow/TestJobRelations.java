@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either 
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public 
+ * License along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package stackoverflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jsprit.core.problem.VehicleRoutingProblem;
+import jsprit.core.problem.job.Job;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestJobRelations {
+	
+	JobIndex jobIndex;
+	
+	@Before
+	public void doBefore(){
+		Map<String,Job> jobs = new LinkedHashMap<String,Job>();
+		for(String id : new String[]{ "1", "13", "21", "5" }){
+			Job job = mock(Job.class);
+			when(job.getId()).thenReturn(id);
+			jobs.put(id, job);
+		}
+		VehicleRoutingProblem vrp = mock(VehicleRoutingProblem.class);
+		when(vrp.getJobs()).thenReturn(jobs);
+		jobIndex = new JobIndex(vrp);
+	}
+	
+	@Test
+	public void relationsOfJobShouldContainAllRelationsItIsPartOf(){
+		JobRelations relations = new JobRelations.Builder(jobIndex)
+			.addRelation(JobRelations.Type.SAME_ROUTE, "13", "21", 100., 0.)
+			.addRelation(JobRelations.Type.PRECEDENCE, "21", "5", 50., 10.)
+			.addRelation(JobRelations.Type.IMMEDIATELY_AFTER, "21", "13", 500., 500.).build();
+		int job21 = jobIndex.getIndex("21");
+		assertEquals(3, relations.getRelationsEnd(job21) - relations.getRelationsStart(job21));
+		int job5 = jobIndex.getIndex("5");
+		assertEquals(1, relations.getRelationsEnd(job5) - relations.getRelationsStart(job5));
+		int relation = relations.getRelation(relations.getRelationsStart(job5));
+		assertEquals(JobRelations.Type.PRECEDENCE, relations.getType(relation));
+		assertEquals(job21, relations.getFirstJob(relation));
+		assertEquals(job5, relations.getSecondJob(relation));
+		assertEquals(job21, relations.getOtherJob(relation, job5));
+		assertEquals(job5, relations.getOtherJob(relation, job21));
+		assertEquals(50., relations.getReward(relation), 0.);
+		assertEquals(10., relations.getPenalty(relation), 0.);
+		assertFalse(relations.hasRelations(jobIndex.getIndex("1")));
+	}
+	
+	@Test
+	public void immediatelyAfterShouldDefinePredecessorAndSuccessorButNoRouteRelation(){
+		JobRelations relations = new JobRelations.Builder(jobIndex)
+			.addRelation(JobRelations.Type.IMMEDIATELY_AFTER, "21", "13", 500., 500.).build();
+		int job13 = jobIndex.getIndex("13");
+		int job21 = jobIndex.getIndex("21");
+		int relation = relations.getPredecessorRelation(job13);
+		assertEquals(job21, relations.getFirstJob(relation));
+		assertEquals(relation, relations.getSuccessorRelation(job21));
+		assertEquals(-1, relations.getPredecessorRelation(job21));
+		assertEquals(-1, relations.getSuccessorRelation(job13));
+		assertTrue(relations.hasRelations(job13));
+		assertFalse(relations.hasRouteRelations(job13));
+		assertFalse(relations.hasRouteRelations(job21));
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void whenJobHasTwoImmediatePredecessors_itShouldThrowException(){
+		new JobRelations.Builder(jobIndex)
+			.addRelation(JobRelations.Type.IMMEDIATELY_AFTER, "21", "13", 500., 500.)
+			.addRelation(JobRelations.Type.IMMEDIATELY_AFTER, "5", "13", 500., 500.).build();
+	}
+	
+	@Test
+	public void relationsShouldBeReadFromFile() throws IOException{
+		JobRelations relations = JobRelations.read("input/stackoverflow/relations_13_and_21_inSameRoute_13_immediatelyAfter_21.txt", jobIndex);
+		assertEquals(1, relations.getNuOfRelations());
+		assertEquals(JobRelations.Type.IMMEDIATELY_AFTER, relations.getType(0));
+		assertEquals(jobIndex.getIndex("21"), relations.getFirstJob(relations.getPredecessorRelation(jobIndex.getIndex("13"))));
+		assertEquals(500., relations.getReward(0), 0.);
+		assertEquals(500., relations.getPenalty(0), 0.);
+	}
+	
+}
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (C) 2013  Stefan Schroeder
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either 
+ * version 3.0 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public 
+ * License along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package stackoverflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jsprit.core.algorithm.state.StateManager;
+import jsprit.core.problem.VehicleRoutingProblem;
+import jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import jsprit.core.problem.job.Job;
+import jsprit.core.problem.misc.JobInsertionContext;
+import jsprit.core.problem.solution.route.VehicleRoute;
+import jsprit.core.problem.solution.route.activity.ActivityVisitor;
+import jsprit.core.problem.solution.route.activity.TourActivity;
+import jsprit.core.problem.solution.route.activity.TourActivity.JobActivity;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestRelatedJobsConstraints {
+	
+	Map<String,Job> jobs;
+	
+	Map<String,JobActivity> acts;
+	
+	JobIndex jobIndex;
+	
+	JobRouteIndex jobRouteIndex;
+	
+	VehicleRoute route;
+	
+	VehicleRoute otherRoute;
+	
+	@Before
+	public void doBefore(){
+		jobs = new LinkedHashMap<String,Job>();
+		acts = new LinkedHashMap<String,JobActivity>();
+		for(String id : new String[]{ "13", "21", "5" }){
+			Job job = mock(Job.class);
+			when(job.getId()).thenReturn(id);
+			jobs.put(id, job);
+			JobActivity act = mock(JobActivity.class);
+			when(act.getJob()).thenReturn(job);
+			acts.put(id, act);
+		}
+		VehicleRoutingProblem vrp = mock(VehicleRoutingProblem.class);
+		when(vrp.getJobs()).thenReturn(jobs);
+		jobIndex = new JobIndex(vrp);
+		jobRouteIndex = new JobRouteIndex(jobIndex);
+		route = mock(VehicleRoute.class);
+		otherRoute = mock(VehicleRoute.class);
+	}
+	
+	private JobRelations createRelations(JobRelations.Type type, double reward, double penalty){
+		return new JobRelations.Builder(jobIndex).addRelation(type, "21", "13", reward, penalty).build();
+	}
+	
+	private void visit(ActivityVisitor visitor, VehicleRoute route, String... jobIds){
+		visitor.begin(route);
+		for(String jobId : jobIds) visitor.visit(acts.get(jobId));
+		visitor.finish();
+	}
+	
+	private double getRouteCosts(JobRelations relations, String jobId, VehicleRoute route){
+		JobInsertionContext iFacts = new JobInsertionContext(route, jobs.get(jobId), null, null, 0.);
+		return new RelatedJobsRouteConstraint(relations, jobRouteIndex).getCosts(iFacts);
+	}
+	
+	private double getActivityCosts(JobRelations relations, TourActivity prevAct, String newJobId, TourActivity nextAct){
+		JobInsertionContext iFacts = new JobInsertionContext(route, jobs.get(newJobId), null, null, 0.);
+		return new ImmediatelyAfterConstraint(relations).getCosts(iFacts, prevAct, acts.get(newJobId), nextAct, 0.);
+	}
+	
+	@Test
+	public void whenInsertingIntoRouteOfSameRouteRelatedJob_itShouldBeRewarded(){
+		JobRelations relations = createRelations(JobRelations.Type.SAME_ROUTE, 100., 0.);
+		visit(jobRouteIndex, route, "21");
+		assertEquals(-100., getRouteCosts(relations, "13", route), 0.01);
+		assertEquals(0., getRouteCosts(relations, "13", otherRoute), 0.01);
+		assertEquals(0., getRouteCosts(relations, "5", route), 0.01);
+	}
+	
+	@Test
+	public void whenInsertingFirstJobOfPrecedenceIntoRouteOfSecondJob_itShouldBeRewarded(){
+		JobRelations relations = createRelations(JobRelations.Type.PRECEDENCE, 100., 0.);
+		visit(jobRouteIndex, route, "13");
+		assertEquals(-100., getRouteCosts(relations, "21", route), 0.01);
+		assertEquals(0., getRouteCosts(relations, "21", otherRoute), 0.01);
+	}
+	
+	@Test
+	public void whenInsertingSecondJobOfPrecedenceIntoRouteOfFirstJob_itShouldBeRewarded(){
+		JobRelations relations = createRelations(JobRelations.Type.PRECEDENCE, 100., 0.);
+		visit(jobRouteIndex, route, "21");
+		assertEquals(-100., getRouteCosts(relations, "13", route), 0.01);
+		assertEquals(0., getRouteCosts(relations, "13", otherRoute), 0.01);
+	}
+	
+	@Test
+	public void immediatelyAfterShouldNotBeRewardedByRouteConstraint(){
+		JobRelations relations = createRelations(JobRelations.Type.IMMEDIATELY_AFTER, 500., 500.);
+		visit(jobRouteIndex, route, "21");
+		assertEquals(0., getRouteCosts(relations, "13", route), 0.01);
+	}
+	
+	@Test
+	public void whenInsertingDirectlyAfterPredecessor_itShouldBeRewarded(){
+		JobRelations relations = createRelations(JobRelations.Type.IMMEDIATELY_AFTER, 500., 300.);
+		TourActivity other = mock(TourActivity.class);
+		assertEquals(-500., getActivityCosts(relations, acts.get("21"), "13", other), 0.01);
+		assertEquals(300., getActivityCosts(relations, acts.get("5"), "13", acts.get("21")), 0.01);
+		assertEquals(300., getActivityCosts(relations, other, "13", other), 0.01);
+	}
+	
+	@Test
+	public void whenInsertingDirectlyBeforeSuccessor_itShouldBeRewarded(){
+		JobRelations relations = createRelations(JobRelations.Type.IMMEDIATELY_AFTER, 500., 300.);
+		TourActivity other = mock(TourActivity.class);
+		assertEquals(-500., getActivityCosts(relations, other, "21", acts.get("13")), 0.01);
+		assertEquals(0., getActivityCosts(relations, other, "21", acts.get("5")), 0.01);
+	}
+	
+	@Test
+	public void whenInsertingInBetweenPredecessorAndSuccessor_itShouldBePenalized(){
+		JobRelations relations = createRelations(JobRelations.Type.IMMEDIATELY_AFTER, 500., 300.);
+		assertEquals(300., getActivityCosts(relations, acts.get("21"), "5", acts.get("13")), 0.01);
+	}
+	
+	@Test
+	public void routeCostsShouldRewardFulfilledAndPenalizeUnfulfilledRelations(){
+		StateManager stateManager = new StateManager(mock(VehicleRoutingTransportCosts.class));
+		RelatedJobsCosts precedenceCosts = new RelatedJobsCosts(stateManager, createRelations(JobRelations.Type.PRECEDENCE, 100., 30.));
+		visit(precedenceCosts, route, "21", "5", "13");
+		assertEquals(-100., precedenceCosts.getCosts(route), 0.01);
+		visit(precedenceCosts, otherRoute, "13", "21");
+		assertEquals(30., precedenceCosts.getCosts(otherRoute), 0.01);
+		
+		RelatedJobsCosts immediatelyAfterCosts = new RelatedJobsCosts(stateManager, createRelations(JobRelations.Type.IMMEDIATELY_AFTER, 500., 300.));
+		visit(immediatelyAfterCosts, route, "5", "21", "13");
+		assertEquals(-500., immediatelyAfterCosts.getCosts(route), 0.01);
+		visit(immediatelyAfterCosts, otherRoute, "21", "5", "13");
+		assertEquals(300., immediatelyAfterCosts.getCosts(otherRoute), 0.01);
+	}
+	
+	@Test
+	public void whenRelatedJobIsRuined_memorizedRouteCostsAndRouteOfJobShouldBeUpdated(){
+		StateManager stateManager = new StateManager(mock(VehicleRoutingTransportCosts.class));
+		JobRelations relations = createRelations(JobRelations.Type.SAME_ROUTE, 100., 30.);
+		RelatedJobsCosts costs = new RelatedJobsCosts(stateManager, relations);
+		visit(costs, route, "21", "13");
+		visit(jobRouteIndex, route, "21", "13");
+		assertEquals(-100., costs.getCosts(route), 0.01);
+		
+		//ruin removes 21 from route, and the stateManager visits the route again
+		jobRouteIndex.removed(jobs.get("21"), route);
+		visit(costs, route, "13");
+		visit(jobRouteIndex, route, "13");
+		assertEquals(30., costs.getCosts(route), 0.01);
+		assertEquals(null, jobRouteIndex.getRoute(jobs.get("21")));
+		assertEquals(0., getRouteCosts(relations, "5", route), 0.01);
+		assertEquals(-100., getRouteCosts(relations, "21", route), 0.01);
+		
+		//positions of the previous route must not leak into the next one
+		visit(costs, otherRoute, "21");
+		assertEquals(30., costs.getCosts(otherRoute), 0.01);
+	}
+	
+}